@@ -0,0 +1,185 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import board.BitBoard;
+import board.Board;
+import board.Board.BoardBuilder;
+import board.Move;
+import board.Perft;
+import pgn.Fen;
+import pieces.Piece;
+import player.ai.BoardEvaluator;
+import player.ai.MiniMax;
+import player.ai.Zobrist;
+
+/*
+ * Micro benchmarks for the hot paths of the engine, run over a fixed corpus of
+ * positions. Each benchmark is warmed up, then timed over several iterations and
+ * reported as operations per second, nanoseconds per operation and bytes
+ * allocated per operation (read from the thread allocation counter).
+ *
+ *   java bench.Benchmarks [name ...]
+ *
+ * With no names every benchmark is run.
+ */
+public class Benchmarks {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = 500_000_000L;
+    private static final int SEARCH_DEPTH = 3;
+
+    private static final String[] CORPUS = {
+        Perft.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+        "8/8/4k3/3p4/3P4/4K3/8/8 w - - 0 1"
+    };
+
+    // Results are folded in here so the JIT cannot discard the measured work
+    private static long sink;
+
+    private static abstract class Benchmark {
+
+        private final String name;
+
+        Benchmark(String name) {
+            this.name = name;
+        }
+
+        // Runs one pass over the corpus and returns the number of operations performed
+        abstract int run();
+    }
+
+    public static void main(String[] args) {
+        List<Board> boards = new ArrayList<>();
+        List<BitBoard> positions = new ArrayList<>();
+        List<BoardBuilder> builders = new ArrayList<>();
+        List<Move> moves = new ArrayList<>();
+        for (String fen : CORPUS) {
+            Board board = Fen.createBoardFromFEN(fen);
+            boards.add(board);
+            positions.add(BitBoard.fromFen(fen));
+            builders.add(toBuilder(board));
+            moves.addAll(board.currentPlayer().getLegalMoves());
+        }
+
+        BoardEvaluator evaluator = new BoardEvaluator();
+        MiniMax engine = new MiniMax(SEARCH_DEPTH);
+        engine.setVerbosity(MiniMax.Verbosity.QUIET);
+
+        List<Benchmark> benchmarks = Arrays.asList(
+            new Benchmark("board.construction") {
+                int run() {
+                    for (BoardBuilder builder : builders) {
+                        sink += builder.build().hashCode();
+                    }
+                    return builders.size();
+                }
+            },
+            new Benchmark("move.execute") {
+                int run() {
+                    for (Move move : moves) {
+                        sink += move.execute().hashCode();
+                    }
+                    return moves.size();
+                }
+            },
+            new Benchmark("zobrist.hash") {
+                int run() {
+                    for (Board board : boards) {
+                        sink += Zobrist.hash(board);
+                    }
+                    return boards.size();
+                }
+            },
+            new Benchmark("evaluate.board") {
+                int run() {
+                    for (Board board : boards) {
+                        sink += evaluator.evaluate(board);
+                    }
+                    return boards.size();
+                }
+            },
+            new Benchmark("evaluate.bitboard") {
+                int run() {
+                    for (BitBoard position : positions) {
+                        sink += evaluator.evaluate(position);
+                    }
+                    return positions.size();
+                }
+            },
+            new Benchmark("minimax.depth" + SEARCH_DEPTH) {
+                int run() {
+                    for (Board board : boards) {
+                        // Every search starts from an empty table so runs are comparable
+                        engine.newGame();
+                        sink += engine.getBestMove(board).hashCode();
+                    }
+                    return boards.size();
+                }
+            }
+        );
+
+        List<String> selected = Arrays.asList(args);
+        System.out.printf("%-20s %14s %14s %14s%n", "benchmark", "ops/s", "ns/op", "bytes/op");
+        for (Benchmark benchmark : benchmarks) {
+            if (!selected.isEmpty() && !selected.contains(benchmark.name)) {
+                continue;
+            }
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                iterate(benchmark);
+            }
+            long operations = 0;
+            long elapsed = 0;
+            long allocated = 0;
+            for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+                long[] result = iterate(benchmark);
+                operations += result[0];
+                elapsed += result[1];
+                allocated += result[2];
+            }
+            System.out.printf("%-20s %14.0f %14.1f %14.0f%n", benchmark.name, operations / (elapsed / 1e9),
+                              (double) elapsed / operations, (double) allocated / operations);
+        }
+        System.out.printf("(sink %d)%n", sink);
+    }
+
+    // Repeats the benchmark for one iteration's worth of time: operations, nanoseconds, bytes allocated
+    private static long[] iterate(Benchmark benchmark) {
+        long operations = 0;
+        long allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long elapsed;
+        do {
+            operations += benchmark.run();
+            elapsed = System.nanoTime() - startTime;
+        } while (elapsed < ITERATION_NANOS);
+        return new long[] { operations, elapsed, allocatedBytes() - allocatedBefore };
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static BoardBuilder toBuilder(Board board) {
+        BoardBuilder builder = new BoardBuilder();
+        for (Piece piece : board.getAllPieces()) {
+            builder.setPiece(piece);
+        }
+        builder.setMoveMaker(board.currentPlayer().getColor());
+        builder.setEnPassantPawn(board.getEnPassantPawn());
+        return builder;
+    }
+
+}
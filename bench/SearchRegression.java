@@ -0,0 +1,128 @@
+package bench;
+
+import board.Move;
+import pgn.Fen;
+import player.ai.MiniMax;
+
+/*
+ * Searches a fixed set of positions to a fixed depth on one thread with a fresh
+ * engine each, and compares the selected move and the number of boards evaluated
+ * with the recorded values. The search is deterministic under these conditions,
+ * so any change in the counts means the search itself changed: re-record them
+ * when that is intended, investigate when it is not.
+ *
+ * Each position is then searched twice more with forward pruning switched off,
+ * so that move ordering can change the cost of the search but not its result:
+ * once with the hash move searched first and once without. Both must agree on
+ * the move and its score, and the hash moves must save boards in most of the
+ * positions. Some can still go the other way, the rook ending most of all,
+ * where the refutations killers and history pick lead into positions already
+ * in the table more often than the stored ones do.
+ *
+ *   java bench.SearchRegression
+ *
+ * Exits with status 1 when a position no longer matches.
+ */
+public class SearchRegression {
+
+    private static final int HASH_SIZE_MB = 16;
+
+    // Name, FEN, depth, expected move and expected number of boards evaluated
+    private static final String[][] REFERENCE_SEARCHES = {
+        { "start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "6", "Nc3", "5477" },
+        { "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "6", "Bxa6", "82485" },
+        { "middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "6", "Nd5", "18903" },
+        { "wac 1", "2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - 0 1", "7", "Qg6", "162105" },
+        { "wac 2", "r1b1kb1r/pppp1ppp/5q2/4n3/3KP3/2N3PN/PPP4P/R1BQ1B1R b kq - 0 1", "6", "Bc5", "47304" },
+        { "rook endgame", "6k1/5pp1/7p/8/8/8/5PPP/3R2K1 w - - 0 1", "8", "f4", "37372" },
+        { "pawn endgame", "8/8/4k3/3p4/3P4/4K3/8/8 w - - 0 1", "10", "Kf4", "1778" }
+    };
+
+    private SearchRegression() {}
+
+    private static MiniMax newEngine(int depth, boolean forwardPruning, boolean hashMoveOrdering) {
+        MiniMax engine = new MiniMax(depth, HASH_SIZE_MB);
+        engine.setVerbosity(MiniMax.Verbosity.QUIET);
+        engine.setNullMovePruning(forwardPruning);
+        engine.setLateMoveReductions(forwardPruning);
+        engine.setFutilityPruning(forwardPruning);
+        engine.setHashMoveOrdering(hashMoveOrdering);
+        return engine;
+    }
+
+    public static void main(String[] args) {
+        boolean referencesMatch = checkReferenceSearches();
+        boolean hashMovesPay = checkHashMoveOrdering();
+        if (!referencesMatch || !hashMovesPay) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean checkReferenceSearches() {
+        boolean passed = true;
+        long totalBoards = 0;
+        long totalTime = 0;
+        for (String[] reference : REFERENCE_SEARCHES) {
+            int depth = Integer.parseInt(reference[2]);
+            long expectedBoards = Long.parseLong(reference[4]);
+            MiniMax engine = newEngine(depth, true, true);
+
+            long startTime = System.nanoTime();
+            Move move = engine.getBestMove(Fen.createBoardFromFEN(reference[1]));
+            long elapsed = System.nanoTime() - startTime;
+
+            long boards = engine.getBoardsEvaluated();
+            System.out.printf("%-16s depth %2d: %-8s %12d boards, %8.3f s%n", reference[0], depth, move, boards,
+                              Math.max(1, elapsed) / 1e9);
+            if (!move.toString().equals(reference[3]) || boards != expectedBoards) {
+                System.out.printf("  MISMATCH: expected %s with %d boards%n", reference[3], expectedBoards);
+                passed = false;
+            }
+            totalBoards += boards;
+            totalTime += elapsed;
+        }
+        System.out.printf("%s, %d boards at %.0f boards/s%n", passed ? "all searches match" : "MISMATCHES FOUND",
+                          totalBoards, totalBoards / (Math.max(1, totalTime) / 1e9));
+        return passed;
+    }
+
+    private static boolean checkHashMoveOrdering() {
+        boolean passed = true;
+        int savingPositions = 0;
+        long totalBoards = 0;
+        long totalBaselineBoards = 0;
+        for (String[] reference : REFERENCE_SEARCHES) {
+            int depth = Integer.parseInt(reference[2]);
+            MiniMax engine = newEngine(depth, false, true);
+            Move move = engine.getBestMove(Fen.createBoardFromFEN(reference[1]));
+            MiniMax baseline = newEngine(depth, false, false);
+            Move baselineMove = baseline.getBestMove(Fen.createBoardFromFEN(reference[1]));
+
+            long boards = engine.getBoardsEvaluated();
+            long baselineBoards = baseline.getBoardsEvaluated();
+            System.out.printf("%-16s depth %2d: %-8s %12d boards with hash moves, %12d without (%+.1f%%)%n", reference[0],
+                              depth, move, boards, baselineBoards, 100.0 * (boards - baselineBoards) / baselineBoards);
+            if (!move.toString().equals(baselineMove.toString()) || engine.getScore() != baseline.getScore()) {
+                System.out.printf("  MISMATCH: %s scores %d with hash moves, %s scores %d without%n", move,
+                                  engine.getScore(), baselineMove, baseline.getScore());
+                passed = false;
+            }
+            if (boards < baselineBoards) {
+                savingPositions++;
+            }
+            totalBoards += boards;
+            totalBaselineBoards += baselineBoards;
+        }
+        if (2 * savingPositions <= REFERENCE_SEARCHES.length) {
+            System.out.printf("  MISMATCH: hash moves reduce the boards evaluated in only %d of %d positions%n",
+                              savingPositions, REFERENCE_SEARCHES.length);
+            passed = false;
+        }
+        System.out.printf("%s in %d of %d positions, %d boards with hash moves, %d without (%.1f%% fewer)%n",
+                          passed ? "hash moves pay off" : "MISMATCHES FOUND", savingPositions,
+                          REFERENCE_SEARCHES.length, totalBoards, totalBaselineBoards,
+                          100.0 * (totalBaselineBoards - totalBoards) / totalBaselineBoards);
+        return passed;
+    }
+
+}
@@ -0,0 +1,882 @@
+package board;
+
+import board.Board.BoardBuilder;
+import pieces.Bishop;
+import pieces.Color;
+import pieces.King;
+import pieces.Knight;
+import pieces.Pawn;
+import pieces.Piece;
+import pieces.Queen;
+import pieces.Rook;
+import player.ai.PieceSquareTables;
+import player.ai.Zobrist;
+
+/*
+ * Bitboard representation of a position. Bit i of every set corresponds to
+ * tile i of Board, so a8 is bit 0 and h1 is bit 63.
+ */
+public class BitBoard {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece type indexes, in the same order as PieceType
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+
+    public static final long RANK_8 = 0xFFL;
+    public static final long RANK_7 = RANK_8 << 8;
+    public static final long RANK_6 = RANK_8 << 16;
+    public static final long RANK_5 = RANK_8 << 24;
+    public static final long RANK_4 = RANK_8 << 32;
+    public static final long RANK_3 = RANK_8 << 40;
+    public static final long RANK_2 = RANK_8 << 48;
+    public static final long RANK_1 = RANK_8 << 56;
+
+    public static final long[] KNIGHT_ATTACKS = initKnightAttacks();
+    public static final long[] KING_ATTACKS = initKingAttacks();
+    public static final long[][] PAWN_ATTACKS = initPawnAttacks();
+
+    // Squares strictly between two squares on a shared rank, file or diagonal, and the whole line through them
+    public static final long[][] SQUARES_BETWEEN = new long[Board.NUM_TILES][Board.NUM_TILES];
+    public static final long[][] LINE_THROUGH = new long[Board.NUM_TILES][Board.NUM_TILES];
+
+    static {
+        initLines();
+    }
+
+    // Castling rights kept after a move touches a tile, only king and rook homes clear any
+    private static final int[] CASTLING_MASK = initCastlingMask();
+
+    private static final int MAX_UNDO = 512;
+
+    private final long[] pieces;
+    private final long[] colorOccupancy;
+    private final int[] squares;
+    private long occupied;
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private long zobristKey;
+    private long pawnKey;
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
+
+    private final int[] capturedStack;
+    private final int[] castlingStack;
+    private final int[] enPassantStack;
+    private final long[] zobristStack;
+    private int undoCount;
+
+    // Checkers and pinned pieces of the side to move per undo level, worked out on the first isLegal call there
+    private final boolean[] legalityCached;
+    private final long[] checkersStack;
+    private final long[] pinnedStack;
+
+    public BitBoard() {
+        this.pieces = new long[12];
+        this.colorOccupancy = new long[2];
+        this.squares = new int[Board.NUM_TILES];
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            this.squares[i] = EMPTY;
+        }
+        this.occupied = 0L;
+        this.sideToMove = WHITE;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.capturedStack = new int[MAX_UNDO];
+        this.castlingStack = new int[MAX_UNDO];
+        this.enPassantStack = new int[MAX_UNDO];
+        this.zobristStack = new long[MAX_UNDO];
+        this.undoCount = 0;
+        this.legalityCached = new boolean[MAX_UNDO + 1];
+        this.checkersStack = new long[MAX_UNDO + 1];
+        this.pinnedStack = new long[MAX_UNDO + 1];
+    }
+
+    public BitBoard(BitBoard other) {
+        this();
+        System.arraycopy(other.pieces, 0, this.pieces, 0, this.pieces.length);
+        System.arraycopy(other.colorOccupancy, 0, this.colorOccupancy, 0, this.colorOccupancy.length);
+        System.arraycopy(other.squares, 0, this.squares, 0, this.squares.length);
+        this.occupied = other.occupied;
+        this.sideToMove = other.sideToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.zobristKey = other.zobristKey;
+        this.pawnKey = other.pawnKey;
+        this.midgameScore = other.midgameScore;
+        this.endgameScore = other.endgameScore;
+        this.phase = other.phase;
+    }
+
+    public static BitBoard fromBoard(Board board) {
+        BitBoard bitBoard = new BitBoard();
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            Tile tile = board.getTile(i);
+            if (tile.isOccupied()) {
+                Piece piece = tile.getPiece();
+                bitBoard.setPiece(pieceIndex(colorIndex(piece.getColor()), piece.getPieceType().ordinal()), i);
+            }
+        }
+
+        bitBoard.sideToMove = colorIndex(board.currentPlayer().getColor());
+        bitBoard.castlingRights = castlingRightsOf(bitBoard, board.whitePlayer().getPlayerKing(), WHITE) |
+                                  castlingRightsOf(bitBoard, board.blackPlayer().getPlayerKing(), BLACK);
+
+        Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null && colorIndex(enPassantPawn.getColor()) != bitBoard.sideToMove) {
+            int target = enPassantPawn.getPosition() - enPassantPawn.getColor().getDirection() * Board.NUM_TILES_PER_ROW;
+            int origin = target - enPassantPawn.getColor().getDirection() * Board.NUM_TILES_PER_ROW;
+            long jumpRank = enPassantPawn.getColor().isWhite() ? RANK_4 : RANK_5;
+            if ((jumpRank & (1L << enPassantPawn.getPosition())) != 0 &&
+                bitBoard.squares[target] == EMPTY && bitBoard.squares[origin] == EMPTY) {
+                bitBoard.enPassantSquare = target;
+            }
+        }
+
+        bitBoard.zobristKey = Zobrist.hash(bitBoard);
+        return bitBoard;
+    }
+
+    // Reads the placement, side, castling and en passant fields; the move counters are ignored
+    public static BitBoard fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new RuntimeException("Invalid FEN: " + fen);
+        }
+
+        BitBoard bitBoard = new BitBoard();
+        int square = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+                continue;
+            }
+            int type = "pnbrqk".indexOf(Character.toLowerCase(c));
+            if (type < 0 || square >= Board.NUM_TILES) {
+                throw new RuntimeException("Invalid FEN piece placement: " + fen);
+            }
+            bitBoard.setPiece(pieceIndex(Character.isUpperCase(c) ? WHITE : BLACK, type), square++);
+        }
+        if (square != Board.NUM_TILES || Long.bitCount(bitBoard.getPieces(WHITE, KING)) != 1 ||
+            Long.bitCount(bitBoard.getPieces(BLACK, KING)) != 1) {
+            throw new RuntimeException("Invalid FEN piece placement: " + fen);
+        }
+
+        bitBoard.sideToMove = fields[1].equals("b") ? BLACK : WHITE;
+        for (char c : fields[2].toCharArray()) {
+            bitBoard.castlingRights |= c == 'K' ? WHITE_KING_SIDE : c == 'Q' ? WHITE_QUEEN_SIDE :
+                                       c == 'k' ? BLACK_KING_SIDE : c == 'q' ? BLACK_QUEEN_SIDE : 0;
+        }
+        bitBoard.enPassantSquare = fields[3].equals("-") ? NO_SQUARE : Board.getCoordinateAtPosition(fields[3]);
+
+        bitBoard.zobristKey = Zobrist.hash(bitBoard);
+        return bitBoard;
+    }
+
+    private static int castlingRightsOf(BitBoard bitBoard, King king, int color) {
+        int kingHome = color == WHITE ? 60 : 4;
+        int rookRow = color == WHITE ? 56 : 0;
+        if (!king.isFirstMove() || king.getPosition() != kingHome) {
+            return 0;
+        }
+
+        int rights = 0;
+        int rook = pieceIndex(color, ROOK);
+        if (king.isKingSideCastleCapable() && bitBoard.squares[rookRow + 7] == rook) {
+            rights |= color == WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        }
+        if (king.isQueenSideCastleCapable() && bitBoard.squares[rookRow] == rook) {
+            rights |= color == WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    public Board toBoard() {
+        BoardBuilder builder = new BoardBuilder();
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            if (this.squares[i] != EMPTY) {
+                builder.setPiece(createPiece(this.squares[i], i));
+            }
+        }
+
+        if (this.enPassantSquare != NO_SQUARE) {
+            int pawnSquare = this.sideToMove == WHITE ? this.enPassantSquare + 8 : this.enPassantSquare - 8;
+            builder.setEnPassantPawn((Pawn) createPiece(this.squares[pawnSquare], pawnSquare));
+        }
+
+        builder.setMoveMaker(this.sideToMove == WHITE ? Color.WHITE : Color.BLACK);
+        return builder.build();
+    }
+
+    private Piece createPiece(int piece, int square) {
+        Color color = pieceColor(piece) == WHITE ? Color.WHITE : Color.BLACK;
+        switch (pieceType(piece)) {
+            case PAWN:
+                return new Pawn(square, color, ((color.isWhite() ? RANK_2 : RANK_7) & (1L << square)) != 0);
+            case KNIGHT:
+                return new Knight(square, color);
+            case BISHOP:
+                return new Bishop(square, color);
+            case ROOK:
+                int kingSide = color.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+                int queenSide = color.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+                int rookRow = color.isWhite() ? 56 : 0;
+                boolean unmoved = (square == rookRow + 7 && (this.castlingRights & kingSide) != 0) ||
+                                  (square == rookRow && (this.castlingRights & queenSide) != 0);
+                return new Rook(square, color, unmoved);
+            case QUEEN:
+                return new Queen(square, color);
+            default:
+                boolean kingSideCapable = (this.castlingRights & (color.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE)) != 0;
+                boolean queenSideCapable = (this.castlingRights & (color.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE)) != 0;
+                return new King(square, color, kingSideCapable || queenSideCapable, false, kingSideCapable, queenSideCapable);
+        }
+    }
+
+    public void setPiece(int piece, int square) {
+        long bit = 1L << square;
+        this.pieces[piece] |= bit;
+        this.colorOccupancy[pieceColor(piece)] |= bit;
+        this.occupied |= bit;
+        this.squares[square] = piece;
+        this.zobristKey ^= Zobrist.pieceKey(piece, square);
+        updateScores(piece, square, 1);
+    }
+
+    public void removePiece(int square) {
+        int piece = this.squares[square];
+        long bit = ~(1L << square);
+        this.pieces[piece] &= bit;
+        this.colorOccupancy[pieceColor(piece)] &= bit;
+        this.occupied &= bit;
+        this.squares[square] = EMPTY;
+        this.zobristKey ^= Zobrist.pieceKey(piece, square);
+        updateScores(piece, square, -1);
+    }
+
+    // Material and piece-square sums are kept from white's point of view, the pawn key alongside them
+    private void updateScores(int piece, int square, int direction) {
+        if (pieceType(piece) == PAWN) {
+            this.pawnKey ^= Zobrist.pieceKey(piece, square);
+        }
+        int sign = pieceColor(piece) == WHITE ? direction : -direction;
+        this.midgameScore += sign * PieceSquareTables.midgame(piece, square);
+        this.endgameScore += sign * PieceSquareTables.endgame(piece, square);
+        this.phase += direction * PieceSquareTables.phaseWeight(piece);
+    }
+
+    // Plays a move already known to be legal (see isLegal) without testing king safety afterwards
+    public void makeLegalMove(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int flags = PackedMove.getFlags(move);
+        int us = this.sideToMove;
+        int piece = this.squares[from];
+        int captured = EMPTY;
+
+        this.castlingStack[this.undoCount] = this.castlingRights;
+        this.enPassantStack[this.undoCount] = this.enPassantSquare;
+        this.zobristStack[this.undoCount] = this.zobristKey;
+        this.zobristKey ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantSquare);
+
+        if (flags == PackedMove.EN_PASSANT) {
+            int capturedSquare = us == WHITE ? to + 8 : to - 8;
+            captured = this.squares[capturedSquare];
+            removePiece(capturedSquare);
+        } else if (PackedMove.isCapture(move)) {
+            captured = this.squares[to];
+            removePiece(to);
+        }
+        this.capturedStack[this.undoCount++] = captured;
+        this.legalityCached[this.undoCount] = false;
+
+        removePiece(from);
+        setPiece(PackedMove.isPromotion(move) ? pieceIndex(us, PackedMove.getPromotionType(move)) : piece, to);
+
+        if (flags == PackedMove.KING_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if (flags == PackedMove.QUEEN_CASTLE) {
+            movePiece(to - 2, to + 1);
+        }
+
+        this.castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        this.enPassantSquare = flags == PackedMove.DOUBLE_PAWN_PUSH ? (from + to) / 2 : NO_SQUARE;
+        this.sideToMove = us ^ 1;
+        this.zobristKey ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantSquare) ^
+                           Zobrist.sideToMoveKey();
+
+        if (Zobrist.isVerifyingIncrementalHash() &&
+            (this.zobristKey != Zobrist.hash(this) || this.pawnKey != Zobrist.pawnHash(this))) {
+            throw new RuntimeException("Incremental Zobrist hash does not match position after " +
+                                       PackedMove.toString(move) + ":\n" + this);
+        }
+    }
+
+    public void unmakeMove(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int flags = PackedMove.getFlags(move);
+        int us = this.sideToMove ^ 1;
+
+        this.sideToMove = us;
+        this.undoCount--;
+        this.castlingRights = this.castlingStack[this.undoCount];
+        this.enPassantSquare = this.enPassantStack[this.undoCount];
+        int captured = this.capturedStack[this.undoCount];
+
+        if (flags == PackedMove.KING_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if (flags == PackedMove.QUEEN_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+
+        int piece = PackedMove.isPromotion(move) ? pieceIndex(us, PAWN) : this.squares[to];
+        removePiece(to);
+        setPiece(piece, from);
+
+        if (flags == PackedMove.EN_PASSANT) {
+            setPiece(captured, us == WHITE ? to + 8 : to - 8);
+        } else if (captured != EMPTY) {
+            setPiece(captured, to);
+        }
+        this.zobristKey = this.zobristStack[this.undoCount];
+    }
+
+    // Passes the turn without moving, for null-move pruning; must not be played while in check
+    public void makeNullMove() {
+        this.castlingStack[this.undoCount] = this.castlingRights;
+        this.enPassantStack[this.undoCount] = this.enPassantSquare;
+        this.zobristStack[this.undoCount] = this.zobristKey;
+        this.capturedStack[this.undoCount++] = EMPTY;
+        this.legalityCached[this.undoCount] = false;
+
+        this.zobristKey ^= Zobrist.enPassantKey(this.enPassantSquare) ^ Zobrist.sideToMoveKey();
+        this.enPassantSquare = NO_SQUARE;
+        this.sideToMove ^= 1;
+    }
+
+    public void unmakeNullMove() {
+        this.sideToMove ^= 1;
+        this.undoCount--;
+        this.castlingRights = this.castlingStack[this.undoCount];
+        this.enPassantSquare = this.enPassantStack[this.undoCount];
+        this.zobristKey = this.zobristStack[this.undoCount];
+    }
+
+    /*
+     * Whether a pseudo-legal move from generateMoves keeps the mover's king safe,
+     * decided without playing it. For the side to move most moves are settled by
+     * the checkers and pinned pieces of the position; king moves, en passant and
+     * moves of the other side get a full attack test on the position after.
+     */
+    public boolean isLegal(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int piece = this.squares[from];
+        int us = pieceColor(piece);
+
+        // Castles are only generated when the king does not pass through check
+        if (PackedMove.isCastle(move)) {
+            return true;
+        }
+        if (us != this.sideToMove || pieceType(piece) == KING || PackedMove.isEnPassant(move)) {
+            return isKingSafeAfter(move, us);
+        }
+
+        if (!this.legalityCached[this.undoCount]) {
+            updateLegalityInfo();
+        }
+        int kingSquare = getKingSquare(us);
+        long checkers = this.checkersStack[this.undoCount];
+        long toBit = 1L << to;
+        if (checkers != 0) {
+            // Two checkers can only be escaped by the king, one has to be captured or blocked
+            if ((checkers & (checkers - 1)) != 0) {
+                return false;
+            }
+            if (((SQUARES_BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)] | checkers) & toBit) == 0) {
+                return false;
+            }
+        }
+        return (this.pinnedStack[this.undoCount] & (1L << from)) == 0 || (LINE_THROUGH[kingSquare][from] & toBit) != 0;
+    }
+
+    private void updateLegalityInfo() {
+        int us = this.sideToMove;
+        int them = us ^ 1;
+        int kingSquare = getKingSquare(us);
+        this.checkersStack[this.undoCount] = (PAWN_ATTACKS[us][kingSquare] & getPieces(them, PAWN)) |
+                        (KNIGHT_ATTACKS[kingSquare] & getPieces(them, KNIGHT)) |
+                        (bishopAttacks(kingSquare, this.occupied) & (getPieces(them, BISHOP) | getPieces(them, QUEEN))) |
+                        (rookAttacks(kingSquare, this.occupied) & (getPieces(them, ROOK) | getPieces(them, QUEEN)));
+
+        // An enemy slider with exactly one piece between it and the king pins that piece if it is ours
+        long snipers = (rookAttacks(kingSquare, 0L) & (getPieces(them, ROOK) | getPieces(them, QUEEN))) |
+                       (bishopAttacks(kingSquare, 0L) & (getPieces(them, BISHOP) | getPieces(them, QUEEN)));
+        long pinnedPieces = 0L;
+        while (snipers != 0) {
+            long blockers = SQUARES_BETWEEN[kingSquare][Long.numberOfTrailingZeros(snipers)] & this.occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinnedPieces |= blockers & this.colorOccupancy[us];
+            }
+            snipers &= snipers - 1;
+        }
+        this.pinnedStack[this.undoCount] = pinnedPieces;
+        this.legalityCached[this.undoCount] = true;
+    }
+
+    private boolean isKingSafeAfter(int move, int us) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        long toBit = 1L << to;
+        long capturedBit = PackedMove.isEnPassant(move) ? 1L << (us == WHITE ? to + 8 : to - 8) : toBit;
+        long occupiedAfter = (this.occupied & ~(1L << from) & ~capturedBit) | toBit;
+        int kingSquare = pieceType(this.squares[from]) == KING ? to : getKingSquare(us);
+        return !isSquareAttacked(kingSquare, us ^ 1, occupiedAfter, capturedBit);
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = this.squares[from];
+        removePiece(from);
+        setPiece(piece, to);
+    }
+
+    public int getPiece(int square) {
+        return this.squares[square];
+    }
+
+    public long getPieces(int color, int type) {
+        return this.pieces[pieceIndex(color, type)];
+    }
+
+    public long getOccupancy(int color) {
+        return this.colorOccupancy[color];
+    }
+
+    public long getOccupied() {
+        return this.occupied;
+    }
+
+    public int getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    public int getMidgameScore() {
+        return this.midgameScore;
+    }
+
+    public int getEndgameScore() {
+        return this.endgameScore;
+    }
+
+    public int getPhase() {
+        return this.phase;
+    }
+
+    public int getKingSquare(int color) {
+        return Long.numberOfTrailingZeros(this.pieces[pieceIndex(color, KING)]);
+    }
+
+    public boolean isInCheck() {
+        return isSquareAttacked(getKingSquare(this.sideToMove), this.sideToMove ^ 1);
+    }
+
+    // Pieces of either color attacking the square, with sliders blocked by the given occupancy
+    public long attackersTo(int square, long occupied) {
+        long diagonalSliders = this.pieces[pieceIndex(WHITE, BISHOP)] | this.pieces[pieceIndex(WHITE, QUEEN)] |
+                               this.pieces[pieceIndex(BLACK, BISHOP)] | this.pieces[pieceIndex(BLACK, QUEEN)];
+        long straightSliders = this.pieces[pieceIndex(WHITE, ROOK)] | this.pieces[pieceIndex(WHITE, QUEEN)] |
+                               this.pieces[pieceIndex(BLACK, ROOK)] | this.pieces[pieceIndex(BLACK, QUEEN)];
+        return (PAWN_ATTACKS[BLACK][square] & getPieces(WHITE, PAWN)) |
+               (PAWN_ATTACKS[WHITE][square] & getPieces(BLACK, PAWN)) |
+               (KNIGHT_ATTACKS[square] & (getPieces(WHITE, KNIGHT) | getPieces(BLACK, KNIGHT))) |
+               (KING_ATTACKS[square] & (getPieces(WHITE, KING) | getPieces(BLACK, KING))) |
+               (bishopAttacks(square, occupied) & diagonalSliders) |
+               (rookAttacks(square, occupied) & straightSliders);
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        return isSquareAttacked(square, byColor, this.occupied, 0L);
+    }
+
+    // As if the board had the given occupancy, with the removed pieces no longer attacking
+    private boolean isSquareAttacked(int square, int byColor, long occupied, long removed) {
+        long attackers = this.colorOccupancy[byColor] & ~removed;
+        return (PAWN_ATTACKS[byColor ^ 1][square] & getPieces(byColor, PAWN) & attackers) != 0 ||
+               (KNIGHT_ATTACKS[square] & getPieces(byColor, KNIGHT) & attackers) != 0 ||
+               (KING_ATTACKS[square] & getPieces(byColor, KING)) != 0 ||
+               (bishopAttacks(square, occupied) & (getPieces(byColor, BISHOP) | getPieces(byColor, QUEEN)) & attackers) != 0 ||
+               (rookAttacks(square, occupied) & (getPieces(byColor, ROOK) | getPieces(byColor, QUEEN)) & attackers) != 0;
+    }
+
+    // Pseudo-legal moves for the side to move; moves leaving the king in check are not filtered
+    public void generateMoves(MoveList moves) {
+        generateMoves(moves, this.sideToMove);
+    }
+
+    public void generateMoves(MoveList moves, int us) {
+        int them = us ^ 1;
+        long own = this.colorOccupancy[us];
+        long enemy = this.colorOccupancy[them];
+
+        generatePawnMoves(moves, us, enemy);
+
+        long knights = getPieces(us, KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addMoves(moves, from, KNIGHT_ATTACKS[from] & ~own, enemy);
+            knights &= knights - 1;
+        }
+
+        long diagonalSliders = getPieces(us, BISHOP) | getPieces(us, QUEEN);
+        while (diagonalSliders != 0) {
+            int from = Long.numberOfTrailingZeros(diagonalSliders);
+            addMoves(moves, from, bishopAttacks(from, this.occupied) & ~own, enemy);
+            diagonalSliders &= diagonalSliders - 1;
+        }
+
+        long straightSliders = getPieces(us, ROOK) | getPieces(us, QUEEN);
+        while (straightSliders != 0) {
+            int from = Long.numberOfTrailingZeros(straightSliders);
+            addMoves(moves, from, rookAttacks(from, this.occupied) & ~own, enemy);
+            straightSliders &= straightSliders - 1;
+        }
+
+        int kingSquare = getKingSquare(us);
+        addMoves(moves, kingSquare, KING_ATTACKS[kingSquare] & ~own, enemy);
+        generateCastles(moves, us);
+    }
+
+    // Captures, en passant and queen promotions only, for the quiescence search
+    public void generateCaptures(MoveList moves) {
+        int us = this.sideToMove;
+        long enemy = this.colorOccupancy[us ^ 1];
+
+        generatePawnCaptures(moves, us, enemy);
+
+        long knights = getPieces(us, KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addMoves(moves, from, KNIGHT_ATTACKS[from] & enemy, enemy);
+            knights &= knights - 1;
+        }
+
+        long diagonalSliders = getPieces(us, BISHOP) | getPieces(us, QUEEN);
+        while (diagonalSliders != 0) {
+            int from = Long.numberOfTrailingZeros(diagonalSliders);
+            addMoves(moves, from, bishopAttacks(from, this.occupied) & enemy, enemy);
+            diagonalSliders &= diagonalSliders - 1;
+        }
+
+        long straightSliders = getPieces(us, ROOK) | getPieces(us, QUEEN);
+        while (straightSliders != 0) {
+            int from = Long.numberOfTrailingZeros(straightSliders);
+            addMoves(moves, from, rookAttacks(from, this.occupied) & enemy, enemy);
+            straightSliders &= straightSliders - 1;
+        }
+
+        int kingSquare = getKingSquare(us);
+        addMoves(moves, kingSquare, KING_ATTACKS[kingSquare] & enemy, enemy);
+    }
+
+    private void addMoves(MoveList moves, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(packMove(from, to, (enemy & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+            targets &= targets - 1;
+        }
+    }
+
+    // Full 32-bit move with the moving and captured pieces read off the board
+    private int packMove(int from, int to, int flags) {
+        int movedPiece = this.squares[from];
+        int capturedPiece;
+        if (flags == PackedMove.EN_PASSANT) {
+            capturedPiece = pieceIndex(pieceColor(movedPiece) ^ 1, PAWN);
+        } else {
+            capturedPiece = this.squares[to] == EMPTY ? PackedMove.NO_PIECE : this.squares[to];
+        }
+        return PackedMove.create(from, to, flags, movedPiece, capturedPiece);
+    }
+
+    private void generatePawnMoves(MoveList moves, int us, long enemy) {
+        long pawns = getPieces(us, PAWN);
+        long empty = ~this.occupied;
+        long promotionRank = us == WHITE ? RANK_8 : RANK_1;
+        int forward = us == WHITE ? -8 : 8;
+
+        long singlePushes;
+        long doublePushes;
+        long leftCaptures;
+        long rightCaptures;
+        int leftOffset;
+        int rightOffset;
+        if (us == WHITE) {
+            singlePushes = (pawns >>> 8) & empty;
+            doublePushes = ((singlePushes & RANK_3) >>> 8) & empty;
+            leftCaptures = ((pawns & ~FILE_A) >>> 9) & enemy;
+            rightCaptures = ((pawns & ~FILE_H) >>> 7) & enemy;
+            leftOffset = -9;
+            rightOffset = -7;
+        } else {
+            singlePushes = (pawns << 8) & empty;
+            doublePushes = ((singlePushes & RANK_6) << 8) & empty;
+            leftCaptures = ((pawns & ~FILE_A) << 7) & enemy;
+            rightCaptures = ((pawns & ~FILE_H) << 9) & enemy;
+            leftOffset = 7;
+            rightOffset = 9;
+        }
+
+        addPawnMoves(moves, singlePushes & ~promotionRank, forward, PackedMove.QUIET);
+        addPawnMoves(moves, doublePushes, 2 * forward, PackedMove.DOUBLE_PAWN_PUSH);
+        addPawnMoves(moves, leftCaptures & ~promotionRank, leftOffset, PackedMove.CAPTURE);
+        addPawnMoves(moves, rightCaptures & ~promotionRank, rightOffset, PackedMove.CAPTURE);
+        addPromotions(moves, singlePushes & promotionRank, forward, PackedMove.KNIGHT_PROMOTION);
+        addPromotions(moves, leftCaptures & promotionRank, leftOffset, PackedMove.KNIGHT_PROMOTION_CAPTURE);
+        addPromotions(moves, rightCaptures & promotionRank, rightOffset, PackedMove.KNIGHT_PROMOTION_CAPTURE);
+
+        if (this.enPassantSquare != NO_SQUARE && us == this.sideToMove) {
+            long attackers = PAWN_ATTACKS[us ^ 1][this.enPassantSquare] & pawns;
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                moves.add(packMove(from, this.enPassantSquare, PackedMove.EN_PASSANT));
+                attackers &= attackers - 1;
+            }
+        }
+    }
+
+    private void generatePawnCaptures(MoveList moves, int us, long enemy) {
+        long pawns = getPieces(us, PAWN);
+        long promotionRank = us == WHITE ? RANK_8 : RANK_1;
+        int forward = us == WHITE ? -8 : 8;
+        int leftOffset = us == WHITE ? -9 : 7;
+        int rightOffset = us == WHITE ? -7 : 9;
+
+        long pushes = shift(pawns, forward) & ~this.occupied;
+        long leftCaptures = shift(pawns & ~FILE_A, leftOffset) & enemy;
+        long rightCaptures = shift(pawns & ~FILE_H, rightOffset) & enemy;
+
+        addPawnMoves(moves, leftCaptures & ~promotionRank, leftOffset, PackedMove.CAPTURE);
+        addPawnMoves(moves, rightCaptures & ~promotionRank, rightOffset, PackedMove.CAPTURE);
+        addPawnMoves(moves, pushes & promotionRank, forward, PackedMove.QUEEN_PROMOTION);
+        addPawnMoves(moves, leftCaptures & promotionRank, leftOffset, PackedMove.QUEEN_PROMOTION_CAPTURE);
+        addPawnMoves(moves, rightCaptures & promotionRank, rightOffset, PackedMove.QUEEN_PROMOTION_CAPTURE);
+
+        if (this.enPassantSquare != NO_SQUARE) {
+            long attackers = PAWN_ATTACKS[us ^ 1][this.enPassantSquare] & pawns;
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                moves.add(packMove(from, this.enPassantSquare, PackedMove.EN_PASSANT));
+                attackers &= attackers - 1;
+            }
+        }
+    }
+
+    private void addPawnMoves(MoveList moves, long targets, int offset, int flags) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(packMove(to - offset, to, flags));
+            targets &= targets - 1;
+        }
+    }
+
+    private void addPromotions(MoveList moves, long targets, int offset, int baseFlags) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            for (int promotion = 3; promotion >= 0; promotion--) {
+                moves.add(packMove(to - offset, to, baseFlags + promotion));
+            }
+            targets &= targets - 1;
+        }
+    }
+
+    private void generateCastles(MoveList moves, int us) {
+        int them = us ^ 1;
+        int kingSquare = us == WHITE ? 60 : 4;
+        int kingSide = us == WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        int queenSide = us == WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        if ((this.castlingRights & (kingSide | queenSide)) == 0 || isSquareAttacked(kingSquare, them)) {
+            return;
+        }
+
+        long kingSideEmpty = 0x3L << (kingSquare + 1);
+        if ((this.castlingRights & kingSide) != 0 && (this.occupied & kingSideEmpty) == 0 &&
+            !isSquareAttacked(kingSquare + 1, them) && !isSquareAttacked(kingSquare + 2, them)) {
+            moves.add(packMove(kingSquare, kingSquare + 2, PackedMove.KING_CASTLE));
+        }
+
+        long queenSideEmpty = 0x7L << (kingSquare - 3);
+        if ((this.castlingRights & queenSide) != 0 && (this.occupied & queenSideEmpty) == 0 &&
+            !isSquareAttacked(kingSquare - 1, them) && !isSquareAttacked(kingSquare - 2, them)) {
+            moves.add(packMove(kingSquare, kingSquare - 2, PackedMove.QUEEN_CASTLE));
+        }
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return Magics.bishopAttacks(square, occupied);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return Magics.rookAttacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return Magics.bishopAttacks(square, occupied) | Magics.rookAttacks(square, occupied);
+    }
+
+    public static long shift(long bitboard, int offset) {
+        return offset > 0 ? bitboard << offset : bitboard >>> -offset;
+    }
+
+    public static int pieceIndex(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int pieceColor(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int pieceType(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    public static int colorIndex(Color color) {
+        return color.isWhite() ? WHITE : BLACK;
+    }
+
+    private static int[] initCastlingMask() {
+        int[] mask = new int[Board.NUM_TILES];
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            mask[i] = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+        }
+        mask[60] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        mask[63] &= ~WHITE_KING_SIDE;
+        mask[56] &= ~WHITE_QUEEN_SIDE;
+        mask[4] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        mask[7] &= ~BLACK_KING_SIDE;
+        mask[0] &= ~BLACK_QUEEN_SIDE;
+        return mask;
+    }
+
+    private static void initLines() {
+        int[][] directions = { { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 } };
+        for (int from = 0; from < Board.NUM_TILES; from++) {
+            for (int[] direction : directions) {
+                long line = (1L << from) | ray(from, direction[0], direction[1]) | ray(from, -direction[0], -direction[1]);
+                long between = 0L;
+                int row = from / 8 + direction[0];
+                int column = from % 8 + direction[1];
+                while (row >= 0 && row < 8 && column >= 0 && column < 8) {
+                    int to = row * 8 + column;
+                    SQUARES_BETWEEN[from][to] = between;
+                    LINE_THROUGH[from][to] = line;
+                    between |= 1L << to;
+                    row += direction[0];
+                    column += direction[1];
+                }
+            }
+        }
+    }
+
+    private static long ray(int from, int rowStep, int columnStep) {
+        long ray = 0L;
+        int row = from / 8 + rowStep;
+        int column = from % 8 + columnStep;
+        while (row >= 0 && row < 8 && column >= 0 && column < 8) {
+            ray |= 1L << (row * 8 + column);
+            row += rowStep;
+            column += columnStep;
+        }
+        return ray;
+    }
+
+    private static long[] initKnightAttacks() {
+        long[] attacks = new long[Board.NUM_TILES];
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            long bit = 1L << i;
+            attacks[i] = ((bit & ~FILE_A) >>> 17) | ((bit & ~FILE_H) >>> 15) |
+                         ((bit & ~(FILE_A | FILE_B)) >>> 10) | ((bit & ~(FILE_G | FILE_H)) >>> 6) |
+                         ((bit & ~(FILE_A | FILE_B)) << 6) | ((bit & ~(FILE_G | FILE_H)) << 10) |
+                         ((bit & ~FILE_A) << 15) | ((bit & ~FILE_H) << 17);
+        }
+        return attacks;
+    }
+
+    private static long[] initKingAttacks() {
+        long[] attacks = new long[Board.NUM_TILES];
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            long bit = 1L << i;
+            attacks[i] = ((bit & ~FILE_A) >>> 9) | (bit >>> 8) | ((bit & ~FILE_H) >>> 7) |
+                         ((bit & ~FILE_A) >>> 1) | ((bit & ~FILE_H) << 1) |
+                         ((bit & ~FILE_A) << 7) | (bit << 8) | ((bit & ~FILE_H) << 9);
+        }
+        return attacks;
+    }
+
+    private static long[][] initPawnAttacks() {
+        long[][] attacks = new long[2][Board.NUM_TILES];
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            long bit = 1L << i;
+            attacks[WHITE][i] = ((bit & ~FILE_A) >>> 9) | ((bit & ~FILE_H) >>> 7);
+            attacks[BLACK][i] = ((bit & ~FILE_A) << 7) | ((bit & ~FILE_H) << 9);
+        }
+        return attacks;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            int piece = this.squares[i];
+            if (piece == EMPTY) {
+                sb.append("-");
+            } else {
+                String name = Piece.PieceType.values()[pieceType(piece)].toString();
+                sb.append(pieceColor(piece) == WHITE ? name : name.toLowerCase());
+            }
+            sb.append((i + 1) % Board.NUM_TILES_PER_ROW == 0 ? "\n" : " ");
+        }
+        return sb.toString();
+    }
+
+}
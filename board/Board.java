@@ -10,7 +10,9 @@ import java.util.Map;
 import player.BlackPlayer;
 import player.Player;
 import player.WhitePlayer;
+import player.ai.Zobrist;
 import pieces.*;
+import pieces.Piece.PieceType;
 
 public class Board {
     public static final int NUM_TILES = 64;
@@ -21,8 +23,6 @@ public class Board {
 
     // Used to determine if a piece is on a certain column for move exceptions 
     public static final boolean[] FIRST_COLUMN = initColumn(0);
-    public static final boolean[] SECOND_COLUMN = initColumn(1);
-    public static final boolean[] SEVENTH_COLUMN = initColumn(6);
     public static final boolean[] EIGHTH_COLUMN = initColumn(7);
 
     public static final boolean[] FIRST_ROW = initRow(0);
@@ -30,6 +30,9 @@ public class Board {
     public static final boolean[] SEVENTH_ROW = initRow(48);
     public static final boolean[] EIGHTH_ROW = initRow(56);
 
+    private static final int[][] DIAGONAL_DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+    private static final int[][] STRAIGHT_DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+
     private List<Tile> gameBoard;
     private Collection<Piece> whitePieces;
     private Collection<Piece> blackPieces;
@@ -37,17 +40,25 @@ public class Board {
     private BlackPlayer blackPlayer;
     private Player currentPlayer;
     private Pawn enPassantPawn;
+    private BitBoard bitBoard;
+    private long zobristHash;
+    private boolean isHashed;
 
+    // Legal moves are generated by the players on first demand rather than here
     public Board(BoardBuilder builder) {
         this.gameBoard = initializeTiles(builder);
         this.whitePieces = getActivePieces(gameBoard, Color.WHITE);
         this.blackPieces = getActivePieces(gameBoard, Color.BLACK);
         this.enPassantPawn = builder.enPassantPawn;
-        Collection<Move> whiteLegalMoves = getLegalMoves(whitePieces);
-        Collection<Move> blackLegalMoves = getLegalMoves(blackPieces);
-        this.whitePlayer = new WhitePlayer(this, whiteLegalMoves, blackLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, blackLegalMoves, whiteLegalMoves);
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(this.whitePlayer, this.blackPlayer);
+        this.zobristHash = builder.zobristHash;
+        this.isHashed = builder.isHashed;
+
+        if (this.isHashed && Zobrist.isVerifyingIncrementalHash() && this.zobristHash != Zobrist.hash(this)) {
+            throw new RuntimeException("Incremental Zobrist hash does not match board:\n" + this);
+        }
     }
 
     @Override
@@ -117,7 +128,7 @@ public class Board {
         return activePieces;
     }
 
-    private Collection<Move> getLegalMoves(Collection<Piece> pieces) {
+    public Collection<Move> calculateLegalMoves(Collection<Piece> pieces) {
         List<Move> legalMoves = new ArrayList<>();
         for (Piece piece : pieces) {
             legalMoves.addAll(piece.calculateLegalMoves(this));
@@ -132,6 +143,69 @@ public class Board {
         return allLegalMoves;
     }
 
+    /*
+     * Looks outwards from the square for each kind of attacker (pawn diagonals,
+     * knight and king jumps, then sliding rays up to the first blocker) instead
+     * of generating the attacker's moves.
+     */
+    public boolean isSquareAttacked(int square, Color byColor) {
+        int attacker = BitBoard.colorIndex(byColor);
+        return isAttackedFrom(BitBoard.PAWN_ATTACKS[attacker ^ 1][square], byColor, PieceType.PAWN) ||
+               isAttackedFrom(BitBoard.KNIGHT_ATTACKS[square], byColor, PieceType.KNIGHT) ||
+               isAttackedFrom(BitBoard.KING_ATTACKS[square], byColor, PieceType.KING) ||
+               isAttackedAlongRays(square, byColor, DIAGONAL_DIRECTIONS, PieceType.BISHOP) ||
+               isAttackedAlongRays(square, byColor, STRAIGHT_DIRECTIONS, PieceType.ROOK);
+    }
+
+    private boolean isAttackedFrom(long origins, Color byColor, PieceType type) {
+        while (origins != 0) {
+            Tile tile = this.gameBoard.get(Long.numberOfTrailingZeros(origins));
+            if (tile.isOccupied() && tile.getPiece().getColor() == byColor && tile.getPiece().getPieceType() == type) {
+                return true;
+            }
+            origins &= origins - 1;
+        }
+        return false;
+    }
+
+    // Directions are {row step, column step}; queens attack along both kinds of ray
+    private boolean isAttackedAlongRays(int square, Color byColor, int[][] directions, PieceType sliderType) {
+        for (int[] direction : directions) {
+            int row = square / NUM_TILES_PER_ROW + direction[0];
+            int column = square % NUM_TILES_PER_ROW + direction[1];
+            while (row >= 0 && row < NUM_TILES_PER_ROW && column >= 0 && column < NUM_TILES_PER_ROW) {
+                Tile tile = this.gameBoard.get(row * NUM_TILES_PER_ROW + column);
+                if (tile.isOccupied()) {
+                    Piece piece = tile.getPiece();
+                    if (piece.getColor() == byColor &&
+                        (piece.getPieceType() == sliderType || piece.getPieceType() == PieceType.QUEEN)) {
+                        return true;
+                    }
+                    break;
+                }
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return false;
+    }
+
+    public BitBoard getBitBoard() {
+        if (this.bitBoard == null) {
+            this.bitBoard = BitBoard.fromBoard(this);
+        }
+        return this.bitBoard;
+    }
+
+    // Carried over from the previous board by Move.execute(), only computed in full for built boards
+    public long getZobristHash() {
+        if (!this.isHashed) {
+            this.zobristHash = Zobrist.hash(this);
+            this.isHashed = true;
+        }
+        return this.zobristHash;
+    }
+
     public Tile getTile(int coordinate) {
         return gameBoard.get(coordinate);
     }
@@ -225,6 +299,8 @@ public class Board {
         Map<Integer, Piece> pieceMap;
         Color nextMoveMaker;
         Pawn enPassantPawn;
+        long zobristHash;
+        boolean isHashed;
 
         public BoardBuilder() { this.pieceMap = new HashMap<>(); }
 
@@ -245,6 +321,12 @@ public class Board {
         public void setEnPassantPawn(Pawn enPassantPawn) {
             this.enPassantPawn = enPassantPawn;
         }
+
+        public BoardBuilder setZobristHash(long zobristHash) {
+            this.zobristHash = zobristHash;
+            this.isHashed = true;
+            return this;
+        }
     }
 
     
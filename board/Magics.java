@@ -0,0 +1,186 @@
+package board;
+
+/*
+ * Fancy magic bitboards for the sliding pieces. For every square the occupancy
+ * of the squares that can block a slider (its rays without the board edge) is
+ * multiplied by a magic number, and the top bits of the product index that
+ * square's slice of a shared attack table:
+ *
+ *   attacks = table[offset[sq] + ((occupied & mask[sq]) * magic[sq] >>> shift[sq])]
+ *
+ * The tables are filled when the class is loaded. The magics below were found
+ * by the search in findMagic; should one of them ever stop fitting its square
+ * the search runs again from a fixed seed, so every run builds the same tables.
+ */
+final class Magics {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[] BISHOP_MAGICS = {
+        0x0020428400408200L, 0x2008010104210004L, 0x02D0009200480190L, 0x0018158B00010100L,
+        0x02C4042132048008L, 0x020082202000C221L, 0x4000421050080009L, 0x0210140202022020L,
+        0x00C0101410042248L, 0x0405204800D48080L, 0x3800C89200420002L, 0x180844124A020440L,
+        0x04403410A8002221L, 0x4040209004200400L, 0x084004020202A204L, 0x3010002104022000L,
+        0x00200240A9110900L, 0x2302800404080210L, 0x0204188800240010L, 0x8048000C01401200L,
+        0x120C001A11040900L, 0x0000401200500440L, 0x00004040840420A0L, 0x0020930822880804L,
+        0x4044401090900161L, 0x0034100015210804L, 0x8004100009010120L, 0x48C8080000820500L,
+        0x0080848004002000L, 0x0801004012005044L, 0x000080902C040400L, 0x0004009005004100L,
+        0x0B103010048A0200L, 0x8004100203181A00L, 0x0800140200100080L, 0x8401010800910040L,
+        0x0840010011290040L, 0x40100214202E1000L, 0x0842040040010840L, 0x0028010040010860L,
+        0x00080202A2051000L, 0x4200841008084204L, 0x0021120110000D02L, 0x48C1004208000084L,
+        0x0010088100414400L, 0x0021101000420580L, 0x0010040558401410L, 0x200C0C82A1050205L,
+        0x0011108820088000L, 0x0001011910120402L, 0x1580008608091248L, 0x8010018020880C02L,
+        0x20A1101032088480L, 0x0080100408082800L, 0x28100401140401C0L, 0x8002102200930012L,
+        0x4001040082080200L, 0x082200A498081808L, 0x000508610080D003L, 0x0052020044842402L,
+        0x4800A00140C84840L, 0x5000000848080820L, 0x0101086004240040L, 0x0028280808005014L
+    };
+
+    private static final long[] ROOK_MAGICS = {
+        0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+        0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+        0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+        0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+        0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+        0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+        0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+        0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+        0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+        0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+        0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+        0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+        0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+        0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+        0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+        0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+
+    private static final long[] BISHOP_MASKS = new long[Board.NUM_TILES];
+    private static final int[] BISHOP_SHIFTS = new int[Board.NUM_TILES];
+    private static final int[] BISHOP_OFFSETS = new int[Board.NUM_TILES];
+
+    private static final long[] ROOK_MASKS = new long[Board.NUM_TILES];
+    private static final int[] ROOK_SHIFTS = new int[Board.NUM_TILES];
+    private static final int[] ROOK_OFFSETS = new int[Board.NUM_TILES];
+
+    private static final long[] BISHOP_TABLE;
+    private static final long[] ROOK_TABLE;
+
+    private static long random = SEED;
+
+    static {
+        BISHOP_TABLE = initSlider(true, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        ROOK_TABLE = initSlider(false, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+    }
+
+    private Magics() {}
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] +
+                            (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] +
+                          (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    private static long[] initSlider(boolean bishop, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < Board.NUM_TILES; square++) {
+            masks[square] = relevantOccupancy(square, bishop);
+            shifts[square] = Long.SIZE - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < Board.NUM_TILES; square++) {
+            magics[square] = findMagic(square, bishop, masks[square], shifts[square], table, offsets[square], magics[square]);
+        }
+        return table;
+    }
+
+    // Tries the known magic, then sparse random multipliers, until one maps every blocker subset without a harmful collision
+    private static long findMagic(int square, boolean bishop, long mask, int shift, long[] table, int offset, long known) {
+        int subsets = 1 << Long.bitCount(mask);
+        long[] occupancies = new long[subsets];
+        long[] attacks = new long[subsets];
+
+        // Carry-rippler walk over every subset of the mask
+        long subset = 0L;
+        for (int i = 0; i < subsets; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slidingAttacks(square, subset, bishop);
+            subset = (subset - mask) & mask;
+        }
+
+        // Entries written by an earlier attempt are recognised by their attempt number
+        int[] epoch = new int[subsets];
+        for (int attempt = 1; ; attempt++) {
+            long magic = attempt == 1 ? known : nextRandom() & nextRandom() & nextRandom();
+            if (attempt > 1 && Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+
+            boolean failed = false;
+            for (int i = 0; i < subsets && !failed; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    table[offset + index] = attacks[i];
+                } else if (table[offset + index] != attacks[i]) {
+                    failed = true;
+                }
+            }
+            if (!failed) {
+                return magic;
+            }
+        }
+    }
+
+    // Squares whose occupancy can change the attacks, the last square of each ray never blocks anything
+    private static long relevantOccupancy(int square, boolean bishop) {
+        long edges = ((BitBoard.RANK_1 | BitBoard.RANK_8) & ~rankOf(square)) |
+                     ((BitBoard.FILE_A | BitBoard.FILE_H) & ~fileOf(square));
+        return slidingAttacks(square, 0L, bishop) & ~edges;
+    }
+
+    private static long rankOf(int square) {
+        return BitBoard.RANK_8 << (square & ~7);
+    }
+
+    private static long fileOf(int square) {
+        return BitBoard.FILE_A << (square & 7);
+    }
+
+    // Reference generator the tables are built from, one step at a time along each ray
+    private static long slidingAttacks(int square, long occupied, boolean bishop) {
+        long bit = 1L << square;
+        if (bishop) {
+            return slide(bit, occupied, -7, ~BitBoard.FILE_A) | slide(bit, occupied, -9, ~BitBoard.FILE_H) |
+                   slide(bit, occupied, 7, ~BitBoard.FILE_H) | slide(bit, occupied, 9, ~BitBoard.FILE_A);
+        }
+        return slide(bit, occupied, -8, -1L) | slide(bit, occupied, 8, -1L) |
+               slide(bit, occupied, -1, ~BitBoard.FILE_H) | slide(bit, occupied, 1, ~BitBoard.FILE_A);
+    }
+
+    // The mask drops bits that wrapped onto the opposite edge
+    private static long slide(long bit, long occupied, int offset, long mask) {
+        long attacks = 0L;
+        long ray = bit;
+        do {
+            ray = BitBoard.shift(ray, offset) & mask;
+            attacks |= ray;
+        } while (ray != 0 && (ray & occupied) == 0);
+        return attacks;
+    }
+
+    // xorshift64*
+    private static long nextRandom() {
+        random ^= random >>> 12;
+        random ^= random << 25;
+        random ^= random >>> 27;
+        return random * 0x2545F4914F6CDD1DL;
+    }
+
+}
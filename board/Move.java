@@ -4,6 +4,7 @@ import board.Board.BoardBuilder;
 import pieces.Pawn;
 import pieces.Piece;
 import pieces.Rook;
+import player.ai.Zobrist;
 
 public abstract class Move implements Comparable<Move> {
 
@@ -123,11 +124,29 @@ public abstract class Move implements Comparable<Move> {
             builder.setPiece(piece);
         }
 
-        builder.setPiece(this.movedPiece.movePiece(this));
+        Piece placedPiece = this.movedPiece.movePiece(this);
+        builder.setPiece(placedPiece);
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+        builder.setZobristHash(calculateZobristHash(placedPiece, null));
         return builder.build();
     }
 
+    // Hash of the board this move leads to, derived from the current board's hash
+    protected long calculateZobristHash(Piece placedPiece, Pawn nextEnPassantPawn) {
+        long hash = this.board.getZobristHash();
+        hash ^= Zobrist.pieceKey(this.movedPiece, this.movedPiece.getPosition());
+        hash ^= Zobrist.pieceKey(placedPiece, this.destinationCoordinate);
+        hash ^= Zobrist.castlingKey(this.movedPiece) ^ Zobrist.castlingKey(placedPiece);
+
+        Piece attackedPiece = getAttackedPiece();
+        if (attackedPiece != null) {
+            hash ^= Zobrist.pieceKey(attackedPiece, attackedPiece.getPosition());
+        }
+
+        hash ^= Zobrist.enPassantKey(this.board.getEnPassantPawn()) ^ Zobrist.enPassantKey(nextEnPassantPawn);
+        return hash ^ Zobrist.sideToMoveKey();
+    }
+
     public Board undo() {
         BoardBuilder builder = new BoardBuilder();
 
@@ -296,8 +315,10 @@ public abstract class Move implements Comparable<Move> {
                 builder.setPiece(piece);
             }
 
-            builder.setPiece(this.promotedPawn.getPromotedPiece().movePiece(this));
+            Piece promotedPiece = this.promotedPawn.getPromotedPiece().movePiece(this);
+            builder.setPiece(promotedPiece);
             builder.setMoveMaker(board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash(promotedPiece, null));
             return builder.build();
             
         }
@@ -350,8 +371,10 @@ public abstract class Move implements Comparable<Move> {
                 
             }
 
-            builder.setPiece(this.promotedPawn.getPromotedPiece().movePiece(this));
+            Piece promotedPiece = this.promotedPawn.getPromotedPiece().movePiece(this);
+            builder.setPiece(promotedPiece);
             builder.setMoveMaker(board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash(promotedPiece, null));
             return builder.build();
             
         }
@@ -407,6 +430,7 @@ public abstract class Move implements Comparable<Move> {
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash(movedPawn, movedPawn));
             return builder.build();
         }
 
@@ -476,6 +500,7 @@ public abstract class Move implements Comparable<Move> {
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash(movedPawn, movedPawn));
             return builder.build();
         }
 
@@ -523,9 +548,14 @@ public abstract class Move implements Comparable<Move> {
                 builder.setPiece(piece);
             }
 
-            builder.setPiece(this.movedPiece.movePiece(this));
-            builder.setPiece(new Rook(this.castleRookDestination, this.castleRook.getColor()));
+            Piece castledKing = this.movedPiece.movePiece(this);
+            Rook castledRook = new Rook(this.castleRookDestination, this.castleRook.getColor());
+            builder.setPiece(castledKing);
+            builder.setPiece(castledRook);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getColor());
+            builder.setZobristHash(calculateZobristHash(castledKing, null) ^
+                                   Zobrist.pieceKey(this.castleRook, this.castleRookStart) ^
+                                   Zobrist.pieceKey(castledRook, this.castleRookDestination));
             return builder.build();
         }
 
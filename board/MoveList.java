@@ -0,0 +1,79 @@
+package board;
+
+public class MoveList {
+
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves;
+    private final int[] scores;
+    private int size;
+
+    public MoveList() {
+        this.moves = new int[MAX_MOVES];
+        this.scores = new int[MAX_MOVES];
+        this.size = 0;
+    }
+
+    public void add(int move) {
+        this.moves[this.size++] = move;
+    }
+
+    public int get(int index) {
+        return this.moves[index];
+    }
+
+    public void set(int index, int move) {
+        this.moves[index] = move;
+    }
+
+    public int getScore(int index) {
+        return this.scores[index];
+    }
+
+    public void setScore(int index, int score) {
+        this.scores[index] = score;
+    }
+
+    // One selection step: swaps the best scored move not yet picked into index and returns it
+    public int pickNext(int index) {
+        int best = index;
+        for (int i = index + 1; i < this.size; i++) {
+            if (this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = this.moves[best];
+        int score = this.scores[best];
+        this.moves[best] = this.moves[index];
+        this.scores[best] = this.scores[index];
+        this.moves[index] = move;
+        this.scores[index] = score;
+        return move;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.size; i++) {
+            sb.append(PackedMove.toString(this.moves[i]));
+            if (i < this.size - 1) {
+                sb.append(" ");
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,133 @@
+package board;
+
+import pieces.Piece;
+
+/*
+ * Moves generated by BitBoard are plain ints rather than Move objects:
+ * bits 0-5 hold the source tile, bits 6-11 the destination tile,
+ * bits 12-15 the move flags below, bits 16-19 the moving piece and
+ * bits 20-23 the captured piece (BitBoard piece indexes, NO_PIECE when
+ * nothing is captured). The low 16 bits alone identify the move in a
+ * position and are what the transposition table stores.
+ */
+public final class PackedMove {
+
+    public static final int NULL_MOVE = 0;
+
+    public static final int NO_PIECE = 0xF;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int KNIGHT_PROMOTION = 8;
+    public static final int BISHOP_PROMOTION = 9;
+    public static final int ROOK_PROMOTION = 10;
+    public static final int QUEEN_PROMOTION = 11;
+    public static final int KNIGHT_PROMOTION_CAPTURE = 12;
+    public static final int BISHOP_PROMOTION_CAPTURE = 13;
+    public static final int ROOK_PROMOTION_CAPTURE = 14;
+    public static final int QUEEN_PROMOTION_CAPTURE = 15;
+
+    private static final String PROMOTION_LETTERS = "nbrq";
+
+    private PackedMove() {}
+
+    // The full form, the short form is its low 16 bits
+    public static int create(int from, int to, int flags, int movedPiece, int capturedPiece) {
+        return from | (to << 6) | (flags << 12) | (movedPiece << 16) | (capturedPiece << 20);
+    }
+
+    // Board only generates queen promotions
+    public static int fromMove(Move move) {
+        Piece movedPiece = move.getMovedPiece();
+        Piece capturedPiece = move.getAttackedPiece();
+        int flags;
+        if (move instanceof Move.KingSideCastleMove) {
+            flags = KING_CASTLE;
+        } else if (move instanceof Move.QueenSideCastleMove) {
+            flags = QUEEN_CASTLE;
+        } else if (move instanceof Move.PawnEnPassantAttackMove) {
+            flags = EN_PASSANT;
+        } else if (move instanceof Move.PawnJump) {
+            flags = DOUBLE_PAWN_PUSH;
+        } else if (move.isPromotion()) {
+            flags = move.isAttackMove() ? QUEEN_PROMOTION_CAPTURE : QUEEN_PROMOTION;
+        } else {
+            flags = move.isAttackMove() ? CAPTURE : QUIET;
+        }
+        return create(move.getCurrentCoordinate(), move.getDestinationCoordinate(), flags, pieceIndex(movedPiece),
+                      capturedPiece == null ? NO_PIECE : pieceIndex(capturedPiece));
+    }
+
+    // The Board move from the same squares; any promotion maps to the queen promotion, the only one Board has
+    public static Move toMove(Board board, int move) {
+        for (Move boardMove : board.currentPlayer().getLegalMoves()) {
+            if (boardMove.getCurrentCoordinate() == getFrom(move) && boardMove.getDestinationCoordinate() == getTo(move)) {
+                return boardMove;
+            }
+        }
+        return Move.NULL_MOVE;
+    }
+
+    private static int pieceIndex(Piece piece) {
+        return BitBoard.pieceIndex(BitBoard.colorIndex(piece.getColor()), piece.getPieceType().ordinal());
+    }
+
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getFlags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static int getMovedPiece(int move) {
+        return (move >>> 16) & 0xF;
+    }
+
+    public static int getCapturedPiece(int move) {
+        return (move >>> 20) & 0xF;
+    }
+
+    public static int toShortMove(int move) {
+        return move & 0xFFFF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (getFlags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (getFlags(move) & KNIGHT_PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = getFlags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return getFlags(move) == EN_PASSANT;
+    }
+
+    // Piece type index (BitBoard.KNIGHT .. BitBoard.QUEEN) the pawn promotes to
+    public static int getPromotionType(int move) {
+        return (getFlags(move) & 3) + BitBoard.KNIGHT;
+    }
+
+    public static String toString(int move) {
+        if (move == NULL_MOVE) {
+            return "0000";
+        }
+        String text = Board.getPositionAtCoordinate(getFrom(move)) + Board.getPositionAtCoordinate(getTo(move));
+        return isPromotion(move) ? text + PROMOTION_LETTERS.charAt(getFlags(move) & 3) : text;
+    }
+
+}
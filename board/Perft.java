@@ -0,0 +1,147 @@
+package board;
+
+import java.util.Arrays;
+
+/*
+ * Counts the leaf nodes of the legal move tree to a fixed depth. Run without
+ * arguments it checks the reference positions against their published counts;
+ * otherwise it takes a depth and an optional FEN (the start position by default)
+ * and prints the count for every root move.
+ *
+ *   java board.Perft [--board] [depth [fen]]
+ *
+ * With --board the Board / Player move generator is measured instead of BitBoard.
+ */
+public class Perft {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Name, FEN, depth and expected node count
+    private static final String[][] REFERENCE_POSITIONS = {
+        { "start", START_FEN, "5", "4865609" },
+        { "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603" },
+        { "en passant", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624" },
+        { "promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333" },
+        { "promotion checks", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487" },
+        { "middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594" }
+    };
+
+    private Perft() {}
+
+    public static long perft(BitBoard position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = new MoveList();
+        position.generateMoves(moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (position.isLegal(move)) {
+                position.makeLegalMove(move);
+                nodes += perft(position, depth - 1);
+                position.unmakeMove(move);
+            }
+        }
+        return nodes;
+    }
+
+    public static long perft(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        long nodes = 0;
+        for (Move move : board.currentPlayer().getLegalMoves()) {
+            MoveTransition transition = board.currentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                nodes += perft(transition.getToBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    public static long divide(BitBoard position, int depth) {
+        MoveList moves = new MoveList();
+        position.generateMoves(moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (position.isLegal(move)) {
+                position.makeLegalMove(move);
+                long moveNodes = perft(position, depth - 1);
+                position.unmakeMove(move);
+                System.out.printf("%s: %d%n", PackedMove.toString(move), moveNodes);
+                nodes += moveNodes;
+            }
+        }
+        return nodes;
+    }
+
+    public static long divide(Board board, int depth) {
+        long nodes = 0;
+        for (Move move : board.currentPlayer().getLegalMoves()) {
+            MoveTransition transition = board.currentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                long moveNodes = perft(transition.getToBoard(), depth - 1);
+                System.out.printf("%s%s: %d%n", Board.getPositionAtCoordinate(move.getCurrentCoordinate()),
+                                  Board.getPositionAtCoordinate(move.getDestinationCoordinate()), moveNodes);
+                nodes += moveNodes;
+            }
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        boolean useBoard = args.length > 0 && args[0].equals("--board");
+        int first = useBoard ? 1 : 0;
+
+        if (args.length == first) {
+            if (!runReferencePositions(useBoard)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        int depth = Integer.parseInt(args[first]);
+        String fen = args.length > first + 1 ? String.join(" ", Arrays.copyOfRange(args, first + 1, args.length)) :
+                                               START_FEN;
+        long startTime = System.nanoTime();
+        long nodes = useBoard ? divide(BitBoard.fromFen(fen).toBoard(), depth) : divide(BitBoard.fromFen(fen), depth);
+        report("total", depth, nodes, System.nanoTime() - startTime);
+    }
+
+    private static boolean runReferencePositions(boolean useBoard) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (String[] reference : REFERENCE_POSITIONS) {
+            int depth = Integer.parseInt(reference[2]);
+            long expected = Long.parseLong(reference[3]);
+            BitBoard position = BitBoard.fromFen(reference[1]);
+
+            long startTime = System.nanoTime();
+            long nodes = useBoard ? perft(position.toBoard(), depth) : perft(position, depth);
+            long elapsed = System.nanoTime() - startTime;
+
+            report(reference[0], depth, nodes, elapsed);
+            if (nodes != expected) {
+                System.out.printf("  MISMATCH: expected %d%n", expected);
+                passed = false;
+            }
+            totalNodes += nodes;
+            totalTime += elapsed;
+        }
+        System.out.printf("%s, %d nodes at %.0f nodes/s%n", passed ? "all positions match" : "MISMATCHES FOUND",
+                          totalNodes, totalNodes / (Math.max(1, totalTime) / 1e9));
+        return passed;
+    }
+
+    private static void report(String name, int depth, long nodes, long elapsedNanos) {
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+        System.out.printf("%-16s depth %d: %12d nodes, %8.3f s, %12.0f nodes/s%n", name, depth, nodes, seconds,
+                          nodes / seconds);
+    }
+
+}
@@ -7,6 +7,7 @@ import java.awt.event.ActionListener;
 
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -19,12 +20,20 @@ import javax.swing.SpinnerNumberModel;
 import gui.Table.PlayerType;
 import pieces.Color;
 import player.Player;
+import player.ai.MiniMax;
+import player.ai.TranspositionTable;
 
 public class GameSetup extends JDialog {
 
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner hashSizeSpinner;
+    private JSpinner moveTimeSpinner;
+    private JSpinner gameTimeSpinner;
+    private JSpinner incrementSpinner;
+    private JSpinner searchThreadsSpinner;
+    private JCheckBox keepHashCheckBox;
 
     private static final String HUMAN_TEXT = "Human";
     private static final String COMPUTER_TEXT = "Computer";
@@ -56,7 +65,15 @@ public class GameSetup extends JDialog {
         myPanel.add(blackComputerButton);
 
         myPanel.add(new JLabel("Search"));
-        this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(4, 0, Integer.MAX_VALUE, 1));
+        this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(4, 0, MiniMax.MAX_SEARCH_DEPTH, 1));
+        this.moveTimeSpinner = addLabeledSpinner(myPanel, "Move Time (s, 0 = depth only)", new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
+        this.gameTimeSpinner = addLabeledSpinner(myPanel, "Game Time (min, 0 = move time)", new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
+        this.incrementSpinner = addLabeledSpinner(myPanel, "Increment (s)", new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
+        this.searchThreadsSpinner = addLabeledSpinner(myPanel, "Search Threads", new SpinnerNumberModel(1, 1, Runtime.getRuntime().availableProcessors(), 1));
+        this.hashSizeSpinner = addLabeledSpinner(myPanel, "Hash Size (MB)", new SpinnerNumberModel(TranspositionTable.DEFAULT_SIZE_MB, 1, 8192, 16));
+
+        this.keepHashCheckBox = new JCheckBox("Keep Hash Between Games");
+        myPanel.add(this.keepHashCheckBox);
 
         JButton cancelButton = new JButton("Cancel");
         JButton okButton = new JButton("OK");
@@ -118,4 +135,28 @@ public class GameSetup extends JDialog {
     public int getSearchDepth() {
         return (Integer)this.searchDepthSpinner.getValue();
     }
+
+    public int getMoveTime() {
+        return (Integer)this.moveTimeSpinner.getValue();
+    }
+
+    public int getGameTime() {
+        return (Integer)this.gameTimeSpinner.getValue();
+    }
+
+    public int getIncrement() {
+        return (Integer)this.incrementSpinner.getValue();
+    }
+
+    public int getSearchThreads() {
+        return (Integer)this.searchThreadsSpinner.getValue();
+    }
+
+    public boolean isKeepHashBetweenGames() {
+        return this.keepHashCheckBox.isSelected();
+    }
+
+    public int getHashSize() {
+        return (Integer)this.hashSizeSpinner.getValue();
+    }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@ import java.util.Observable;
 import java.util.Observer;
 import java.util.concurrent.ExecutionException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +46,7 @@ import board.Move.MoveFactory;
 import pieces.Piece;
 import pieces.Piece.PieceType;
 import player.ai.MiniMax;
+import player.ai.TimeManager;
 
 public class Table extends Observable {
 
@@ -55,6 +57,11 @@ public class Table extends Observable {
     private GameHistoryPanel gameHistoryPanel;
     private TakenPiecesPanel takenPiecesPanel;
     private GameSetup gameSetup;
+    private MiniMax engine;
+    private boolean engineSearching;
+    private boolean newGamePending;
+    // Time left on each side's clock when it is played by the computer, indexed by color
+    private final long[] engineClockMillis;
 
     private MoveLog moveLog;
     private Move lastMove;
@@ -94,6 +101,7 @@ public class Table extends Observable {
         this.gameFrame.setResizable(false);
         this.boardPanel = new BoardPanel();
         this.moveLog = new MoveLog();
+        this.engineClockMillis = new long[2];
         this.addObserver(new TableGameAIWatcher());
         this.gameSetup = new GameSetup(this.gameFrame, true);
         this.gameFrame.add(this.takenPiecesPanel, BorderLayout.WEST);
@@ -290,7 +298,41 @@ public class Table extends Observable {
         return this.gameSetup;
     }
 
+    // One engine per table, so its hash table carries over from move to move; configured on the EDT before each search
+    private MiniMax getEngine() {
+        if (this.engine == null) {
+            this.engine = new MiniMax(this.gameSetup.getSearchDepth(), this.gameSetup.getHashSize());
+        }
+        this.engine.setSearchDepth(this.gameSetup.getSearchDepth());
+        this.engine.setHashSize(this.gameSetup.getHashSize());
+        this.engine.setThreadCount(this.gameSetup.getSearchThreads());
+        int moveTime = this.gameSetup.getMoveTime();
+        if (this.gameSetup.getGameTime() > 0) {
+            long remaining = this.engineClockMillis[this.gameBoard.currentPlayer().getColor().ordinal()];
+            this.engine.setTimeManager(TimeManager.forClock(remaining, this.gameSetup.getIncrement() * 1000L));
+        } else {
+            this.engine.setTimeManager(moveTime > 0 ? TimeManager.forMoveTime(moveTime * 1000L) : TimeManager.unlimited());
+        }
+        return this.engine;
+    }
+
+    // The thinking time comes off the mover's clock, the increment is added once the move is made
+    private void updateEngineClock(pieces.Color color, long thinkingMillis) {
+        if (this.gameSetup.getGameTime() > 0) {
+            this.engineClockMillis[color.ordinal()] += this.gameSetup.getIncrement() * 1000L - thinkingMillis;
+        }
+    }
+
     private void setupUpdate(GameSetup gameSetup) {
+        Arrays.fill(this.engineClockMillis, gameSetup.getGameTime() * 60_000L);
+        if (this.engine != null && !gameSetup.isKeepHashBetweenGames()) {
+            // The table is shared with the search in progress, it is cleared once that search is done
+            if (this.engineSearching) {
+                this.newGamePending = true;
+            } else {
+                this.engine.newGame();
+            }
+        }
         setChanged();
         notifyObservers(gameSetup);
         
@@ -331,7 +373,8 @@ public class Table extends Observable {
             if (Table.get().getGameSetup().isAIPlayer(Table.get().getGameBoard().currentPlayer()) &&
                                       !Table.get().getGameBoard().currentPlayer().isInCheckMate() &&
                                       !Table.get().getGameBoard().currentPlayer().isInStaleMate()) {
-                AIThinkTank thinkTank = new AIThinkTank();
+                AIThinkTank thinkTank = new AIThinkTank(Table.get().getEngine(), Table.get().getGameBoard());
+                Table.get().engineSearching = true;
                 thinkTank.execute();
             }
 
@@ -347,21 +390,36 @@ public class Table extends Observable {
         }
     }
 
+    // Searches on a worker thread with an engine and board handed over from the EDT
     private static class AIThinkTank extends SwingWorker<Move, String> {
 
-        private AIThinkTank() {}
+        private final MiniMax engine;
+        private final Board board;
+        private long thinkingMillis;
+
+        private AIThinkTank(MiniMax engine, Board board) {
+            this.engine = engine;
+            this.board = board;
+        }
 
         @Override
         protected Move doInBackground() throws Exception {
-            MiniMax minimax = new MiniMax(Table.get().getGameSetup().getSearchDepth());
-            Move bestMove = minimax.getBestMove(Table.get().getGameBoard());
+            long startTime = System.currentTimeMillis();
+            Move bestMove = this.engine.getBestMove(this.board);
+            this.thinkingMillis = System.currentTimeMillis() - startTime;
             return bestMove;
         }
 
         @Override
         public void done() {
+            Table.get().engineSearching = false;
+            if (Table.get().newGamePending) {
+                Table.get().newGamePending = false;
+                this.engine.newGame();
+            }
             try {
                 Move bestMove = get();
+                Table.get().updateEngineClock(this.board.currentPlayer().getColor(), this.thinkingMillis);
                 Table.get().updateComputerMove(bestMove);
                 Table.get().setLastMove(bestMove);
                 Table.get().updateGameBoard(Table.get().getGameBoard().currentPlayer().makeMove(bestMove).getToBoard());
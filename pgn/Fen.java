@@ -1,5 +1,6 @@
 package pgn;
 
+import board.BitBoard;
 import board.Board;
 
 public class Fen {
@@ -7,7 +8,7 @@ public class Fen {
     private Fen() {}
 
     public static Board createBoardFromFEN(String fen) {
-        return null;
+        return BitBoard.fromFen(fen).toBoard();
     }
 
     public static String createFENFromBoard(Board board) {
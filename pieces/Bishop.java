@@ -12,7 +12,7 @@ import board.Move.BasicMove;
 
 public class Bishop extends Piece {
 
-    private static final int[] POSSIBLE_MOVE_OFFSET = { -9, -7, 7, 9 };
+    private static final int[] DIRECTIONS = { MoveTables.NORTH_WEST, MoveTables.NORTH_EAST, MoveTables.SOUTH_WEST, MoveTables.SOUTH_EAST };
 
     public Bishop(int position, Color color) {
         super(PieceType.BISHOP, position, color, true);
@@ -32,27 +32,18 @@ public class Bishop extends Piece {
     @Override
     public List<Move> calculateLegalMoves(Board board) {
         List<Move> legalMoves = new ArrayList<>();
-        for (int currentMoveOffset : POSSIBLE_MOVE_OFFSET) {
-            int destinationCoordinate = this.piecePosition;
-            while (Board.isValidTileCoordinate(destinationCoordinate)) {
-                if (isFirstColumnExclusion(destinationCoordinate, currentMoveOffset) ||
-                        isEighthColumnExclusion(destinationCoordinate, currentMoveOffset)) {
-                    break;
-                }
-
-                destinationCoordinate += currentMoveOffset;
-                if (Board.isValidTileCoordinate(destinationCoordinate)) {
-                    Tile destinationTile = board.getTile(destinationCoordinate);
-                    if (!destinationTile.isOccupied()) {
-                        legalMoves.add(new BasicMove(board, this, destinationCoordinate));
-
-                    } else {
-                        Piece occupiedPiece = destinationTile.getPiece();
-                        if (this.pieceColor != occupiedPiece.pieceColor) {
-                            legalMoves.add(new BasicAttackMove(board, this, occupiedPiece, destinationCoordinate));
-                        }
-                        break;
+        for (int direction : DIRECTIONS) {
+            for (int destinationCoordinate : MoveTables.ray(this.piecePosition, direction)) {
+                Tile destinationTile = board.getTile(destinationCoordinate);
+                if (!destinationTile.isOccupied()) {
+                    legalMoves.add(new BasicMove(board, this, destinationCoordinate));
+
+                } else {
+                    Piece occupiedPiece = destinationTile.getPiece();
+                    if (this.pieceColor != occupiedPiece.pieceColor) {
+                        legalMoves.add(new BasicAttackMove(board, this, occupiedPiece, destinationCoordinate));
                     }
+                    break;
                 }
             }
         }
@@ -60,16 +51,6 @@ public class Bishop extends Piece {
         return legalMoves;
     }
 
-    /* Exceptions to bishop move offset when its position is on the first or eighth column. */
-
-    private static boolean isFirstColumnExclusion(int position, int offset) {
-        return Board.FIRST_COLUMN[position] && (offset == -9 || offset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(int position, int offset) {
-        return Board.EIGHTH_COLUMN[position] && (offset == -7 || offset == 9);
-    }
-
     @Override
     public Bishop movePiece(Move move) {
         return new Bishop(move.getDestinationCoordinate(), move.getMovedPiece().getColor());
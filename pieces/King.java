@@ -12,8 +12,6 @@ import board.Move.BasicMove;
 
 public class King extends Piece {
 
-    private static final int[] POSSIBLE_MOVE_OFFSET = { -9, -8, -7, -1, 1, 7, 8, 9 };
-
     private boolean isCastled;
     private boolean kingSideCastleCapable;
     private boolean queenSideCastleCapable;
@@ -42,32 +40,21 @@ public class King extends Piece {
     public List<Move> calculateLegalMoves(Board board) {
         List<Move> legalMoves = new ArrayList<>();
 
-        for (int currentMoveOffset : POSSIBLE_MOVE_OFFSET) {
-            int destinationCoordinate = this.piecePosition + currentMoveOffset;
-
-            if (isFirstColumnExclusion(this.piecePosition, currentMoveOffset) ||
-                isEighthColumnExclusion(this.piecePosition, currentMoveOffset)) {
-                continue;
-            }
+        for (int destinationCoordinate : MoveTables.kingTargets(this.piecePosition)) {
+            Tile destinationTile = board.getTile(destinationCoordinate);
 
-            if (Board.isValidTileCoordinate(destinationCoordinate)) {
-                Tile destinationTile = board.getTile(destinationCoordinate);
+            if (!destinationTile.isOccupied()) {
+                legalMoves.add(new BasicMove(board, this, destinationCoordinate));
 
-                if (!destinationTile.isOccupied()) {
-                    legalMoves.add(new BasicMove(board, this, destinationCoordinate));
+            } else {
+                Piece occupiedPiece = destinationTile.getPiece();
 
-                } else {
-                    Piece occupiedPiece = destinationTile.getPiece();
-
-                    if (this.pieceColor != occupiedPiece.pieceColor) {
-                        legalMoves.add(new BasicAttackMove(board, this, occupiedPiece, destinationCoordinate));
-                    }
+                if (this.pieceColor != occupiedPiece.pieceColor) {
+                    legalMoves.add(new BasicAttackMove(board, this, occupiedPiece, destinationCoordinate));
                 }
             }
         }
 
-        
-
         return legalMoves;
     }
 
@@ -86,14 +73,6 @@ public class King extends Piece {
     }
 
 
-    private static boolean isFirstColumnExclusion(int position, int offset) {
-        return Board.FIRST_COLUMN[position] && (offset == -9 || offset == -1 || offset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(int position, int offset) {
-        return Board.EIGHTH_COLUMN[position] && (offset == -7 || offset == 1 || offset == 9);
-    }
-
     @Override
     public King movePiece(Move move) {
         return new King(move.getDestinationCoordinate(), move.getMovedPiece().getColor(), false, move.isCastlingMove(), false, false);
@@ -0,0 +1,93 @@
+package pieces;
+
+import java.util.Arrays;
+
+import board.Board;
+
+/*
+ * Target squares of the knight and king, and the rays of the sliding pieces,
+ * for every square of the board. Built once when the class is loaded, so move
+ * generation walks a table instead of checking each offset against the board
+ * edges. Rays are ordered outwards from the square they start on.
+ */
+final class MoveTables {
+
+    // Ray directions, in the order of their offsets { -9, -8, -7, -1, 1, 7, 8, 9 }
+    static final int NORTH_WEST = 0;
+    static final int NORTH = 1;
+    static final int NORTH_EAST = 2;
+    static final int WEST = 3;
+    static final int EAST = 4;
+    static final int SOUTH_WEST = 5;
+    static final int SOUTH = 6;
+    static final int SOUTH_EAST = 7;
+
+    // Row and column steps of each ray direction
+    private static final int[][] DIRECTION_STEPS = {
+        { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 }
+    };
+
+    // Row and column steps of the knight offsets { -17, -15, -10, -6, 6, 10, 15, 17 }
+    private static final int[][] KNIGHT_STEPS = {
+        { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 }
+    };
+
+    private static final int[][] KNIGHT_TARGETS = new int[Board.NUM_TILES][];
+    private static final int[][] KING_TARGETS = new int[Board.NUM_TILES][];
+    private static final int[][][] RAYS = new int[Board.NUM_TILES][DIRECTION_STEPS.length][];
+
+    static {
+        for (int square = 0; square < Board.NUM_TILES; square++) {
+            KNIGHT_TARGETS[square] = targets(square, KNIGHT_STEPS);
+            KING_TARGETS[square] = targets(square, DIRECTION_STEPS);
+            for (int direction = 0; direction < DIRECTION_STEPS.length; direction++) {
+                RAYS[square][direction] = ray(square, DIRECTION_STEPS[direction]);
+            }
+        }
+    }
+
+    private MoveTables() {}
+
+    static int[] knightTargets(int square) {
+        return KNIGHT_TARGETS[square];
+    }
+
+    static int[] kingTargets(int square) {
+        return KING_TARGETS[square];
+    }
+
+    static int[] ray(int square, int direction) {
+        return RAYS[square][direction];
+    }
+
+    private static int[] targets(int square, int[][] steps) {
+        int[] buffer = new int[steps.length];
+        int count = 0;
+        for (int[] step : steps) {
+            int row = square / Board.NUM_TILES_PER_ROW + step[0];
+            int column = square % Board.NUM_TILES_PER_ROW + step[1];
+            if (isOnBoard(row, column)) {
+                buffer[count++] = row * Board.NUM_TILES_PER_ROW + column;
+            }
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private static int[] ray(int square, int[] step) {
+        int[] buffer = new int[Board.NUM_TILES_PER_ROW - 1];
+        int count = 0;
+        int row = square / Board.NUM_TILES_PER_ROW + step[0];
+        int column = square % Board.NUM_TILES_PER_ROW + step[1];
+        while (isOnBoard(row, column)) {
+            buffer[count++] = row * Board.NUM_TILES_PER_ROW + column;
+            row += step[0];
+            column += step[1];
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private static boolean isOnBoard(int row, int column) {
+        return row >= 0 && row < Board.NUM_TILES_PER_ROW && column >= 0 && column < Board.NUM_TILES_PER_ROW;
+    }
+
+}
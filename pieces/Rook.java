@@ -12,7 +12,7 @@ import board.Move.BasicMove;
 
 public class Rook extends Piece {
 
-    private static final int[] POSSIBLE_MOVE_OFFSET = { -8, -1, 1, 8 };
+    private static final int[] DIRECTIONS = { MoveTables.NORTH, MoveTables.WEST, MoveTables.EAST, MoveTables.SOUTH };
 
     public Rook(int position, Color color) {
         super(PieceType.ROOK, position, color, true);
@@ -31,27 +31,18 @@ public class Rook extends Piece {
     public List<Move> calculateLegalMoves(Board board) {
         List<Move> legalMoves = new ArrayList<>();
 
-        for (int currentMoveOffset : POSSIBLE_MOVE_OFFSET) {
-            int destinationCoordinate = this.piecePosition;
-            while (Board.isValidTileCoordinate(destinationCoordinate)) {
-                if (isFirstColumnExclusion(destinationCoordinate, currentMoveOffset) ||
-                        isEighthColumnExclusion(destinationCoordinate, currentMoveOffset)) {
-                    break;
-                }
-
-                destinationCoordinate += currentMoveOffset;
-                if (Board.isValidTileCoordinate(destinationCoordinate)) {
-                    Tile destinationTile = board.getTile(destinationCoordinate);
-                    if (!destinationTile.isOccupied()) {
-                        legalMoves.add(new BasicMove(board, this, destinationCoordinate));
+        for (int direction : DIRECTIONS) {
+            for (int destinationCoordinate : MoveTables.ray(this.piecePosition, direction)) {
+                Tile destinationTile = board.getTile(destinationCoordinate);
+                if (!destinationTile.isOccupied()) {
+                    legalMoves.add(new BasicMove(board, this, destinationCoordinate));
 
-                    } else {
-                        Piece occupiedPiece = destinationTile.getPiece();
-                        if (this.pieceColor != occupiedPiece.pieceColor) {
-                            legalMoves.add(new BasicAttackMove(board, this, occupiedPiece, destinationCoordinate));
-                        }
-                        break;
+                } else {
+                    Piece occupiedPiece = destinationTile.getPiece();
+                    if (this.pieceColor != occupiedPiece.pieceColor) {
+                        legalMoves.add(new BasicAttackMove(board, this, occupiedPiece, destinationCoordinate));
                     }
+                    break;
                 }
             }
         }
@@ -60,16 +51,6 @@ public class Rook extends Piece {
     }
 
 
-    /* Exceptions to knight move offset when its position is on the first or eighth column. */
-
-    private static boolean isFirstColumnExclusion(int position, int offset) {
-        return Board.FIRST_COLUMN[position] && offset == -1;
-    }
-
-    private static boolean isEighthColumnExclusion(int position, int offset) {
-        return Board.EIGHTH_COLUMN[position] && offset == 1;
-    }
-
     @Override
     public Rook movePiece(Move move) {
         return new Rook(move.getDestinationCoordinate(), move.getMovedPiece().getColor());
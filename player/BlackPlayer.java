@@ -16,8 +16,8 @@ import pieces.Piece.PieceType;
 
 public class BlackPlayer extends Player {
 
-    public BlackPlayer(Board board, Collection<Move> whiteLegalMoves, Collection<Move> blackLegalMoves) {
-        super(board, whiteLegalMoves, blackLegalMoves);
+    public BlackPlayer(Board board) {
+        super(board);
     }
 
     @Override
@@ -41,7 +41,7 @@ public class BlackPlayer extends Player {
     }
 
     @Override
-    public Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentsLegals) {
+    public Collection<Move> calculateKingCastles() {
         List<Move> kingCastles = new ArrayList<>();
 
         if (this.playerKing.isFirstMove() && !this.isInCheck()) {
@@ -49,8 +49,8 @@ public class BlackPlayer extends Player {
             if (!this.board.getTile(5).isOccupied() && !this.board.getTile(6).isOccupied()) {
                 Tile rookTile = this.board.getTile(7);
                 if (rookTile.isOccupied() && rookTile.getPiece().isFirstMove()) {
-                    if (calculateAttacksOnTile(5, opponentsLegals).isEmpty() &&
-                        calculateAttacksOnTile(6, opponentsLegals).isEmpty() &&
+                    if (!this.board.isSquareAttacked(5, Color.WHITE) &&
+                        !this.board.isSquareAttacked(6, Color.WHITE) &&
                         rookTile.getPiece().getPieceType() == PieceType.ROOK) {
                             kingCastles.add(new KingSideCastleMove(this.board,
                                                                    this.playerKing,
@@ -67,8 +67,8 @@ public class BlackPlayer extends Player {
                 !this.board.getTile(3).isOccupied()) {
                 Tile rookTile = this.board.getTile(0);
                 if (rookTile.isOccupied() && rookTile.getPiece().isFirstMove() &&
-                    calculateAttacksOnTile(2, opponentsLegals).isEmpty() &&
-                    calculateAttacksOnTile(3, opponentsLegals).isEmpty() &&
+                    !this.board.isSquareAttacked(2, Color.WHITE) &&
+                    !this.board.isSquareAttacked(3, Color.WHITE) &&
                     rookTile.getPiece().getPieceType() == PieceType.ROOK) {
                     kingCastles.add(new QueenSideCastleMove(this.board,
                                                             this.playerKing,
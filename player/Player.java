@@ -4,10 +4,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import board.BitBoard;
 import board.Board;
 import board.Move;
 import board.MoveStatus;
 import board.MoveTransition;
+import board.PackedMove;
 import pieces.Color;
 import pieces.King;
 import pieces.Piece;
@@ -17,15 +19,12 @@ public abstract class Player {
 
     protected Board board;
     protected King playerKing;
-    protected Collection<Move> legalMoves;
-    protected boolean isInCheck;
+    private Collection<Move> legalMoves;
+    private Boolean isInCheck;
 
-    public Player(Board board, Collection<Move> legalMoves, Collection<Move> opponentMoves) {
+    public Player(Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        this.isInCheck = !calculateAttacksOnTile(this.playerKing.getPosition(), opponentMoves).isEmpty();
-        legalMoves.addAll(calculateKingCastles(legalMoves, opponentMoves));
-        this.legalMoves = legalMoves;
     }
 
     private King establishKing() {
@@ -43,13 +42,17 @@ public abstract class Player {
     }
 
     public Collection<Move> getLegalMoves() {
-        return legalMoves;
+        if (this.legalMoves == null) {
+            List<Move> moves = new ArrayList<>(this.board.calculateLegalMoves(getActivePieces()));
+            moves.addAll(calculateKingCastles());
+            this.legalMoves = moves;
+        }
+        return this.legalMoves;
     }
 
-
     public Collection<Move> getCaptureMoves() {
         Collection<Move> captureMoves = new ArrayList<Move>();
-        for (Move move : legalMoves) {
+        for (Move move : getLegalMoves()) {
             if (move.isAttackMove()) {
                 captureMoves.add(move);
             }
@@ -59,7 +62,7 @@ public abstract class Player {
 
     public Collection<Move> getCastlingMoves() {
         Collection<Move> castlingMoves = new ArrayList<Move>();
-        for (Move move : legalMoves) {
+        for (Move move : getLegalMoves()) {
             if (move.isCastlingMove()) {
                 castlingMoves.add(move);
             }
@@ -67,30 +70,24 @@ public abstract class Player {
         return castlingMoves;
     }
 
-    public static Collection<Move> calculateAttacksOnTile(int piecePosition, Collection<Move> opponentMoves) {
-        List<Move> attackMoves = new ArrayList<>();
-        for (Move move : opponentMoves) {
-            if (piecePosition == move.getDestinationCoordinate()) {
-                attackMoves.add(move);
-            }
-        }
-        return attackMoves;
-    }
-
     public boolean isMoveLegal(Move move) {
-        return this.legalMoves.contains(move);
+        return getLegalMoves().contains(move);
     }
 
+    // Answered by looking for attackers of the king, without generating the opponent's moves
     public boolean isInCheck() {
+        if (this.isInCheck == null) {
+            this.isInCheck = this.board.isSquareAttacked(this.playerKing.getPosition(), getOpponent().getColor());
+        }
         return this.isInCheck;
     }
 
     public boolean isInCheckMate() {
-        return this.isInCheck && !hasEscapeMoves();
+        return isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isInStaleMate() {
-        return !this.isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isKingSideCastleCapable() {
@@ -102,10 +99,11 @@ public abstract class Player {
         return playerKing.isQueenSideCastleCapable();
     }
 
+    // Stops at the first move that passes the legality test, no boards are built for the moves tried
     protected boolean hasEscapeMoves() {
-        for (Move move : this.legalMoves) {
-            MoveTransition transition = makeMove(move);
-            if (transition.getMoveStatus().isDone()) {
+        BitBoard position = this.board.getBitBoard();
+        for (Move move : getLegalMoves()) {
+            if (position.isLegal(PackedMove.fromMove(move))) {
                 return true;
             }
         }
@@ -123,10 +121,7 @@ public abstract class Player {
         }
 
         Board transitionBoard = move.execute();
-        Collection<Move> kingAttacks = calculateAttacksOnTile(transitionBoard.currentPlayer().getOpponent().getPlayerKing().getPosition(),
-                                                                    transitionBoard.currentPlayer().getLegalMoves());
-
-        if (!kingAttacks.isEmpty()) {
+        if (transitionBoard.currentPlayer().getOpponent().isInCheck()) {
             return new MoveTransition(this.board, this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
         }
 
@@ -143,6 +138,6 @@ public abstract class Player {
 
     public abstract Player getOpponent();
 
-    public abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentsLegals);
+    public abstract Collection<Move> calculateKingCastles();
     
 }
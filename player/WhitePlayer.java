@@ -16,8 +16,8 @@ import pieces.Piece.PieceType;
 
 public class WhitePlayer extends Player {
 
-    public WhitePlayer(Board board, Collection<Move> whiteLegalMoves, Collection<Move> blackLegalMoves) {
-        super(board, whiteLegalMoves, blackLegalMoves);
+    public WhitePlayer(Board board) {
+        super(board);
     }
 
     @Override
@@ -41,7 +41,7 @@ public class WhitePlayer extends Player {
     }
 
     @Override
-    public Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentsLegals) {
+    public Collection<Move> calculateKingCastles() {
         List<Move> kingCastles = new ArrayList<>();
 
         if (this.playerKing.isFirstMove() && !this.isInCheck()) {
@@ -49,26 +49,26 @@ public class WhitePlayer extends Player {
             if (!this.board.getTile(61).isOccupied() && !this.board.getTile(62).isOccupied()) {
                 Tile rookTile = this.board.getTile(63);
                 if (rookTile.isOccupied() && rookTile.getPiece().isFirstMove()) {
-                    if (calculateAttacksOnTile(61, opponentsLegals).isEmpty() &&
-                    calculateAttacksOnTile(62, opponentsLegals).isEmpty() &&
+                    if (!this.board.isSquareAttacked(61, Color.BLACK) &&
+                        !this.board.isSquareAttacked(62, Color.BLACK) &&
                         rookTile.getPiece().getPieceType() == PieceType.ROOK) {
-                            kingCastles.add(new KingSideCastleMove(this.board, 
-                                                                   this.playerKing, 
-                                                                   62, 
-                                                                   (Rook) rookTile.getPiece(), 
-                                                                   rookTile.getTileCoordinate(), 
-                                                                   61));
+                        kingCastles.add(new KingSideCastleMove(this.board,
+                                                               this.playerKing,
+                                                               62,
+                                                               (Rook) rookTile.getPiece(),
+                                                               rookTile.getTileCoordinate(),
+                                                               61));
                     }
                 }
-            }   
+            }
 
             // Queen side castle
             if (!this.board.getTile(59).isOccupied() && !this.board.getTile(58).isOccupied() &&
                 !this.board.getTile(57).isOccupied()) {
                 Tile rookTile = this.board.getTile(56);
                 if (rookTile.isOccupied() && rookTile.getPiece().isFirstMove() &&
-                    calculateAttacksOnTile(58, opponentsLegals).isEmpty() &&
-                    calculateAttacksOnTile(59, opponentsLegals).isEmpty() &&
+                    !this.board.isSquareAttacked(58, Color.BLACK) &&
+                    !this.board.isSquareAttacked(59, Color.BLACK) &&
                     rookTile.getPiece().getPieceType() == PieceType.ROOK) {
                     kingCastles.add(new QueenSideCastleMove(this.board,
                                                             this.playerKing,
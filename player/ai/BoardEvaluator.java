@@ -1,234 +1,199 @@
 package player.ai;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-
+import board.BitBoard;
 import board.Board;
-import board.Move;
-import board.Move.AttackMove;
-import pieces.Piece;
 import pieces.Piece.PieceType;
-import player.Player;
 
 public class BoardEvaluator {
 
     private static final int CHECK_BONUS = 50;
-    private static final int CHECK_MATE_BONUS = 10000;
-    private static final int DEPTH_BONUS = 100;
-    private static final int CASTLE_BONUS = 50;
+    private static final int CHECK_MATE_BONUS = 100000;
     private static final int DOUBLE_BISHOP_BONUS = 25;
+    private static final int HANGING_PIECE_PENALTY = -20;
 
     private static final int MOBILITY_WEIGHT = 5;
     private static final int ATTACKS_WEIGHT = 1;
 
-    private final static List<Integer> PAWN_PIECE_SQUARE_TABLE = Arrays.asList(
-        0,  0,  0,  0,  0,  0,  0,  0,
-        50, 50, 50, 50, 50, 50, 50, 50,
-        10, 10, 20, 30, 30, 20, 10, 10,
-        5,  5, 10, 25, 25, 10,  5,  5,
-        0,  0,  0, 20, 20,  0,  0,  0,
-        5, -5,-10,  0,  0,-10, -5,  5,
-        5, 10, 10,-20,-20, 10, 10,  5,
-        0,  0,  0,  0,  0,  0,  0,  0
-    );
-
-
-    private final static List<Integer> KNIGHT_PIECE_SQUARE_TABLE = Arrays.asList(
-        -50,-40,-30,-30,-30,-30,-40,-50,
-        -40,-20,  0,  5,  5,  0,-20,-40,
-        -30,  0, 10, 15, 15, 10,  0,-30,
-        -30,  5, 15, 20, 20, 15,  5,-30,
-        -30,  0, 15, 20, 20, 15,  0,-30,
-        -30,  5, 10, 15, 15, 10,  5,-30,
-        -40,-20,  0,  0,  0,  0,-20,-40,
-        -50,-40,-30,-30,-30,-30,-40,-50
-    );
-
-
-    private final static List<Integer> BISHOP_PIECE_SQUARE_TABLE = Arrays.asList(
-        -20,-10,-10,-10,-10,-10,-10,-20,
-        -10,  0,  0,  0,  0,  0,  0,-10,
-        -10,  0,  5, 10, 10,  5,  0,-10,
-        -10,  5,  5, 10, 10,  5,  5,-10,
-        -10,  0, 10, 15, 15, 10,  0,-10,
-        -10, 10, 10, 10, 10, 10, 10,-10,
-        -10,  5,  0,  0,  0,  0,  5,-10,
-        -20,-10,-10,-10,-10,-10,-10,-20
-    );
-
-
-    private final static List<Integer> ROOK_PIECE_SQUARE_TABLE = Arrays.asList(
-        0,  0,  0,  0,  0,  0,  0,  0,
-        5, 10, 10, 10, 10, 10, 10,  5,
-        5,  0,  0,  0,  0,  0,  0, -5,
-       -5,  0,  0,  0,  0,  0,  0, -5,
-       -5,  0,  0,  0,  0,  0,  0, -5,
-       -5,  0,  0,  0,  0,  0,  0, -5,
-       -5,  0,  0,  0,  0,  0,  0, -5,
-        0,  0,  0,  5,  5,  0,  0,  0
-    );
-
-
-    private final static List<Integer> QUEEN_PIECE_SQUARE_TABLE = Arrays.asList(
-        -20,-10,-10, -5, -5,-10,-10,-20,
-        -10,  0,  0,  0,  0,  0,  0,-10,
-        -10,  0,  5,  5,  5,  5,  0,-10,
-         -5,  0,  5,  5,  5,  5,  0, -5,
-          0,  0,  5,  5,  5,  5,  0, -5,
-        -10,  5,  5,  5,  5,  5,  0,-10,
-        -10,  0,  5,  0,  0,  0,  0,-10,
-        -20,-10,-10, -5, -5,-10,-10,-20
-    );
-
-
-    private final static List<Integer> KING_PIECE_SQUARE_TABLE_MIDGAME = Arrays.asList(
-        -30,-40,-40,-50,-50,-40,-40,-30,
-        -30,-40,-40,-50,-50,-40,-40,-30,
-        -30,-40,-40,-50,-50,-40,-40,-30,
-        -30,-40,-40,-50,-50,-40,-40,-30,
-        -20,-30,-30,-40,-40,-30,-30,-20,
-        -10,-20,-20,-20,-20,-20,-20,-10,
-         20, 20,  0,  0,  0,  0, 20, 20,
-         20, 30, 10,  0,  0, 10, 30, 20
-    );
-
-    private final static List<Integer> KING_PIECE_SQUARE_TABLE_ENDGAME = Arrays.asList(
-        -50,-30,-30,-30,-30,-30,-30,-50,
-        -30,-30,  0,  0,  0,  0,-30,-30,
-        -30,-10, 20, 30, 30, 20,-10,-30,
-        -30,-10, 30, 40, 40, 30,-10,-30,
-        -30,-10, 30, 40, 40, 30,-10,-30,
-        -30,-10, 20, 30, 30, 20,-10,-30,
-        -30,-20,-10,  0,  0,-10,-20,-30,
-        -50,-40,-30,-20,-20,-30,-40,-50
-    );
-
-    private enum GamePhase {
-        OPENING,
-        MIDGAME,
-        ENDGAME
+    static final int[] PIECE_VALUES = initPieceValues();
+
+    private final PawnHashTable pawnHashTable;
+    // Scratch state of the position being evaluated, indexed by piece index and by color
+    private final long[] pieces;
+    private final int[] moveCounts;
+    private final int[] attackCounts;
+    private final long[] attackedSquares;
+    private final StaticExchange staticExchange;
+
+    public BoardEvaluator() {
+        this.pawnHashTable = new PawnHashTable(PawnHashTable.DEFAULT_ENTRIES);
+        this.pieces = new long[12];
+        this.moveCounts = new int[2];
+        this.attackCounts = new int[2];
+        this.attackedSquares = new long[2];
+        this.staticExchange = new StaticExchange();
     }
 
-    public int evaluate(Board board, int depth) {
-        return scorePlayer(board, board.whitePlayer(), depth) -
-                scorePlayer(board, board.blackPlayer(), depth);
+    private static int[] initPieceValues() {
+        int[] values = new int[PieceType.values().length];
+        for (PieceType type : PieceType.values()) {
+            values[type.ordinal()] = type.getValue();
+        }
+        return values;
     }
 
-    public int scorePlayer(Board board, Player player, int depth) {
-         return pieceEvaluation(player) +
-                mobility(player) +
-                attacks(player) +
-                check(player) +
-                checkmate(player, depth) +
-                castled(player) + 
-                pawnStructure(player);
+    // Static terms only: no move is generated or played, mates are left to the search
+    public int evaluate(Board board) {
+        return evaluate(board.getBitBoard());
     }
 
-    private static int pieceEvaluation(Player player) {
-        int pieceValueScore = 0;
-        int bishopCount = 0;
-        for (Piece piece : player.getActivePieces()) {
-            pieceValueScore += piece.getPieceValue() + pieceSquareBonus(piece, determineGamePhase(player));
+    // Material and piece-square terms come ready summed from the position
+    public int evaluate(BitBoard position) {
+        loadPieces(position);
+        return PieceSquareTables.taper(position.getMidgameScore(), position.getEndgameScore(), position.getPhase()) +
+               pawnStructure(position) +
+               scoreSide(position, BitBoard.WHITE) - scoreSide(position, BitBoard.BLACK);
+    }
 
-            if (piece.getPieceType() == PieceType.BISHOP) {
-                bishopCount++;
-            }
-        }
+    public PawnHashTable getPawnHashTable() {
+        return this.pawnHashTable;
+    }
 
-        return pieceValueScore + (bishopCount == 2 ? DOUBLE_BISHOP_BONUS : 0);
+    // Mate delivered the given number of plies from the root, nearer mates score higher
+    public static int mateScore(int ply) {
+        return CHECK_MATE_BONUS - ply;
     }
 
-    private static int pieceSquareBonus(Piece piece, GamePhase gamePhase) {
-        switch (piece.getPieceType()) {
-            case PAWN:
-                return piece.getColor().isWhite() ? PAWN_PIECE_SQUARE_TABLE.get(piece.getPosition()) :
-                                                    blackPieceSquareTable(PAWN_PIECE_SQUARE_TABLE).get(piece.getPosition());
-            case KNIGHT:
-                return piece.getColor().isWhite() ? KNIGHT_PIECE_SQUARE_TABLE.get(piece.getPosition()) :
-                                                    blackPieceSquareTable(KNIGHT_PIECE_SQUARE_TABLE).get(piece.getPosition());
-            case BISHOP:
-                return piece.getColor().isWhite() ? BISHOP_PIECE_SQUARE_TABLE.get(piece.getPosition()) :
-                                                    blackPieceSquareTable(BISHOP_PIECE_SQUARE_TABLE).get(piece.getPosition());
-            case ROOK:
-                return piece.getColor().isWhite() ? ROOK_PIECE_SQUARE_TABLE.get(piece.getPosition()) :
-                                                    blackPieceSquareTable(ROOK_PIECE_SQUARE_TABLE).get(piece.getPosition());
-            case QUEEN:
-                return piece.getColor().isWhite() ? QUEEN_PIECE_SQUARE_TABLE.get(piece.getPosition()) :
-                                                    blackPieceSquareTable(QUEEN_PIECE_SQUARE_TABLE).get(piece.getPosition());
-            case KING:
-                return piece.getColor().isWhite() ? (gamePhase == GamePhase.ENDGAME ? KING_PIECE_SQUARE_TABLE_ENDGAME.get(piece.getPosition()) : 
-                                                                                      KING_PIECE_SQUARE_TABLE_MIDGAME.get(piece.getPosition())) : 
-                                                    (gamePhase == GamePhase.ENDGAME ? blackPieceSquareTable(KING_PIECE_SQUARE_TABLE_ENDGAME).get(piece.getPosition()) : 
-                                                                                      blackPieceSquareTable(KING_PIECE_SQUARE_TABLE_MIDGAME).get(piece.getPosition()));
-            default:
-                return 0;
-        }
+    // Every mate the search can see scores beyond anything the static terms reach
+    public static boolean isMateScore(int score) {
+        return score >= mateScore(MoveOrdering.MAX_PLY) || score <= -mateScore(MoveOrdering.MAX_PLY);
     }
 
-    private static List<Integer> blackPieceSquareTable(List<Integer> pieceSquareTable) {
-        List<Integer> temp = pieceSquareTable;
-        Collections.reverse(pieceSquareTable);
-        return temp;
+    private int scoreSide(BitBoard position, int color) {
+        return bishopPair(color) +
+               mobility(color) +
+               attacks(color) +
+               check(position, color) +
+               hangingPieces(position, color);
     }
 
-    private static int mobility(Player player) {
-        return ((int) ((player.getLegalMoves().size() / 10.0f) /
-                player.getOpponent().getLegalMoves().size())) *
-                MOBILITY_WEIGHT;
+    private void loadPieces(BitBoard position) {
+        for (int color = BitBoard.WHITE; color <= BitBoard.BLACK; color++) {
+            for (int type = BitBoard.PAWN; type <= BitBoard.KING; type++) {
+                this.pieces[BitBoard.pieceIndex(color, type)] = position.getPieces(color, type);
+            }
+        }
+        countMoves(BitBoard.WHITE);
+        countMoves(BitBoard.BLACK);
     }
 
-    private static int attacks(Player player) {
-        int attackScore = 0;
-        for (Move move : player.getLegalMoves()) {
-            if (move.isAttackMove()) {
-                if (move.getMovedPiece().getPieceValue() <= (((AttackMove) move).getAttackedPiece().getPieceValue())) {
-                    attackScore++;
+    /*
+     * Counts, from the attack tables, the destination squares of a side's pseudo-legal
+     * moves (castling aside), its captures of pieces worth at least the capturing piece
+     * and every square it attacks.
+     */
+    private void countMoves(int color) {
+        long own = 0L;
+        long enemy = 0L;
+        for (int type = BitBoard.PAWN; type <= BitBoard.KING; type++) {
+            own |= this.pieces[BitBoard.pieceIndex(color, type)];
+            enemy |= this.pieces[BitBoard.pieceIndex(color ^ 1, type)];
+        }
+        long occupied = own | enemy;
+
+        int forward = color == BitBoard.WHITE ? -8 : 8;
+        long pushes = BitBoard.shift(this.pieces[BitBoard.pieceIndex(color, BitBoard.PAWN)], forward) & ~occupied;
+        long doublePushes = BitBoard.shift(pushes & (color == BitBoard.WHITE ? BitBoard.RANK_3 : BitBoard.RANK_6),
+                                           forward) & ~occupied;
+        int moveCount = Long.bitCount(pushes) + Long.bitCount(doublePushes);
+        int attackCount = 0;
+        long attackedSquares = 0L;
+
+        for (int type = BitBoard.PAWN; type <= BitBoard.KING; type++) {
+            long victims = 0L;
+            for (int victim = BitBoard.PAWN; victim <= BitBoard.KING; victim++) {
+                if (PIECE_VALUES[type] <= PIECE_VALUES[victim]) {
+                    victims |= this.pieces[BitBoard.pieceIndex(color ^ 1, victim)];
                 }
             }
+            long targets = type == BitBoard.PAWN ? enemy : ~own;
+
+            long remaining = this.pieces[BitBoard.pieceIndex(color, type)];
+            while (remaining != 0) {
+                int square = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                long attacked = attacksFrom(type, color, square, occupied);
+                attackedSquares |= attacked;
+                moveCount += Long.bitCount(attacked & targets);
+                attackCount += Long.bitCount(attacked & victims);
+            }
         }
 
-        return attackScore * ATTACKS_WEIGHT;
+        this.moveCounts[color] = moveCount;
+        this.attackCounts[color] = attackCount;
+        this.attackedSquares[color] = attackedSquares;
     }
 
-    private static int check(Player player) {
-        return player.getOpponent().isInCheck() ? CHECK_BONUS : 0;
-    }
-
-    private static int checkmate(Player player, int depth) {
-        return player.getOpponent().isInCheckMate() ? CHECK_MATE_BONUS * depthBonus(depth) : 0;
+    private static long attacksFrom(int type, int color, int square, long occupied) {
+        switch (type) {
+            case BitBoard.PAWN:
+                return BitBoard.PAWN_ATTACKS[color][square];
+            case BitBoard.KNIGHT:
+                return BitBoard.KNIGHT_ATTACKS[square];
+            case BitBoard.BISHOP:
+                return BitBoard.bishopAttacks(square, occupied);
+            case BitBoard.ROOK:
+                return BitBoard.rookAttacks(square, occupied);
+            case BitBoard.QUEEN:
+                return BitBoard.queenAttacks(square, occupied);
+            default:
+                return BitBoard.KING_ATTACKS[square];
+        }
     }
 
-    private static int depthBonus(int depth) {
-        return depth == 0 ? 1 : DEPTH_BONUS * depth;
+    private int bishopPair(int color) {
+        return Long.bitCount(this.pieces[BitBoard.pieceIndex(color, BitBoard.BISHOP)]) == 2 ? DOUBLE_BISHOP_BONUS : 0;
     }
 
-    private static int castled(Player player) {
-        return player.isCastled() ? CASTLE_BONUS : 0;
+    // A side without a single move would otherwise divide by zero
+    private int mobility(int color) {
+        return ((int) ((this.moveCounts[color] / 10.0f) / Math.max(1, this.moveCounts[color ^ 1]))) * MOBILITY_WEIGHT;
     }
 
-    private static int pawnStructure(Player player) {
-        return PawnStructureAnalyzer.pawnStructureScore(player);
+    private int attacks(int color) {
+        return this.attackCounts[color] * ATTACKS_WEIGHT;
     }
 
-    private static GamePhase determineGamePhase(Player player) {
-        List<Piece> allPieces = new ArrayList<>();
-        allPieces.addAll(player.getActivePieces());
-        allPieces.addAll(player.getOpponent().getActivePieces());
-
-        int npm = 0;
-        for (Piece piece : allPieces) {
-            if (piece.getPieceType() != PieceType.PAWN) {
-                npm++;
+    // Pieces other than pawns the opponent wins material against by starting an exchange on their square
+    private int hangingPieces(BitBoard position, int color) {
+        long candidates = this.attackedSquares[color ^ 1] & position.getOccupancy(color) &
+                          ~(this.pieces[BitBoard.pieceIndex(color, BitBoard.PAWN)] |
+                            this.pieces[BitBoard.pieceIndex(color, BitBoard.KING)]);
+        int hangingCount = 0;
+        while (candidates != 0) {
+            int square = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (this.staticExchange.evaluateThreat(position, square, color ^ 1) > 0) {
+                hangingCount++;
             }
         }
-        return npm < 7 ? GamePhase.ENDGAME : GamePhase.MIDGAME;
+        return hangingCount * HANGING_PIECE_PENALTY;
+    }
+
+    private static int check(BitBoard position, int color) {
+        return position.isSquareAttacked(position.getKingSquare(color ^ 1), color) ? CHECK_BONUS : 0;
     }
 
-    
+    private int pawnStructure(BitBoard position) {
+        long pawnKey = position.getPawnKey();
+        if (this.pawnHashTable.contains(pawnKey)) {
+            return this.pawnHashTable.getScore(pawnKey);
+        }
 
+        int score = PawnStructureAnalyzer.pawnStructureScore(position.getPieces(BitBoard.WHITE, BitBoard.PAWN)) -
+                    PawnStructureAnalyzer.pawnStructureScore(position.getPieces(BitBoard.BLACK, BitBoard.PAWN));
+        this.pawnHashTable.store(pawnKey, score);
+        return score;
+    }
 
     private final class PawnStructureAnalyzer {
 
@@ -237,24 +202,14 @@ public class BoardEvaluator {
 
         private PawnStructureAnalyzer() {}
 
-        public static int pawnStructureScore(Player player) {
-            int[] pawnsOnColumnTable = createPawnColumnTable(calculatePlayerPawns(player));
-            return calculatePawnColumnStack(pawnsOnColumnTable) + calculateIsolatedPawnPenalty(pawnsOnColumnTable);
+        public static int pawnStructureScore(long pawns) {
+            return calculatePawnColumnStack(pawns) + calculateIsolatedPawnPenalty(pawns);
         }
 
-        private static Collection<Piece> calculatePlayerPawns(Player player) {
-            List<Piece> playerPawns = new ArrayList<Piece>();
-            for (Piece piece : player.getActivePieces()) {
-                if (piece.getPieceType() == PieceType.PAWN) {
-                    playerPawns.add(piece);
-                }
-            }
-            return playerPawns;
-        }
-
-        private static int calculatePawnColumnStack(int[] pawnsOnColumnTable) {
+        private static int calculatePawnColumnStack(long pawns) {
             int pawnStackPenalty = 0;
-            for (int pawnStack : pawnsOnColumnTable) {
+            for (int column = 0; column < 8; column++) {
+                int pawnStack = Long.bitCount(pawns & (BitBoard.FILE_A << column));
                 if (pawnStack > 1) {
                     pawnStackPenalty += pawnStack;
                 }
@@ -262,28 +217,16 @@ public class BoardEvaluator {
             return pawnStackPenalty * DOUBLED_PAWN_PENALTY;
         }
 
-        private static int calculateIsolatedPawnPenalty(int[] pawnsOnColumnTable) {
+        private static int calculateIsolatedPawnPenalty(long pawns) {
             int numIsolatedPawns = 0;
-            if (pawnsOnColumnTable[0] > 0 && pawnsOnColumnTable[1] == 0) {
-                numIsolatedPawns += pawnsOnColumnTable[0];
-            }
-            if (pawnsOnColumnTable[7] > 0 && pawnsOnColumnTable[6] == 0) {
-                numIsolatedPawns += pawnsOnColumnTable[7];
-            }
-            for (int i = 1; i < pawnsOnColumnTable.length - 1; i++) {
-                if ((pawnsOnColumnTable[i - 1] == 0 && pawnsOnColumnTable[i + 1] == 0)) {
-                    numIsolatedPawns += pawnsOnColumnTable[i];
+            for (int column = 0; column < 8; column++) {
+                long file = BitBoard.FILE_A << column;
+                long adjacentFiles = ((file & ~BitBoard.FILE_A) >>> 1) | ((file & ~BitBoard.FILE_H) << 1);
+                if ((pawns & adjacentFiles) == 0) {
+                    numIsolatedPawns += Long.bitCount(pawns & file);
                 }
             }
             return numIsolatedPawns * ISOLATED_PAWN_PENALTY;
         }
-
-        private static int[] createPawnColumnTable(Collection<Piece> playerPawns) {
-            int[] table = new int[8];
-            for (Piece playerPawn : playerPawns) {
-                table[playerPawn.getPosition() % 8]++;
-            }
-            return table;
-        }
     }
 }
@@ -0,0 +1,82 @@
+package player.ai;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import board.BitBoard;
+import board.Board;
+import pgn.Fen;
+
+/*
+ * Evaluation runs at every leaf of the search, so it must not allocate: no
+ * boards, no move lists, no iterators. Each overload is warmed up until the JIT
+ * has compiled it, then the bytes allocated by the current thread over a run of
+ * evaluations are read from the thread allocation counter.
+ *
+ *   java -jar lib/junit-platform-console-standalone-1.9.2.jar -cp <classes> --select-class player.ai.BoardEvaluatorTest
+ */
+public class BoardEvaluatorTest {
+
+    private static final int WARMUP_EVALUATIONS = 200_000;
+    private static final int MEASURED_EVALUATIONS = 10_000;
+
+    private static final String[] POSITIONS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4"
+    };
+
+    // Results are folded in here so the JIT cannot discard the evaluations
+    private static long sink;
+
+    @Test
+    public void evaluatingBoardDoesNotAllocate() {
+        List<Board> boards = new ArrayList<>();
+        for (String fen : POSITIONS) {
+            boards.add(Fen.createBoardFromFEN(fen));
+        }
+        BoardEvaluator evaluator = new BoardEvaluator();
+        assertNoAllocation(boards, evaluator::evaluate);
+    }
+
+    @Test
+    public void evaluatingBitBoardDoesNotAllocate() {
+        List<BitBoard> positions = new ArrayList<>();
+        for (String fen : POSITIONS) {
+            positions.add(BitBoard.fromFen(fen));
+        }
+        BoardEvaluator evaluator = new BoardEvaluator();
+        assertNoAllocation(positions, evaluator::evaluate);
+    }
+
+    private static <T> void assertNoAllocation(List<T> positions, ToIntFunction<T> evaluation) {
+        for (int i = 0; i < WARMUP_EVALUATIONS; i++) {
+            sink += evaluation.applyAsInt(positions.get(i % positions.size()));
+        }
+
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < MEASURED_EVALUATIONS; i++) {
+            sink += evaluation.applyAsInt(positions.get(i % positions.size()));
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        // Any object made per evaluation costs at least 16 bytes, a few stray bytes are counter noise
+        assertTrue(allocated < MEASURED_EVALUATIONS,
+                   String.format("evaluation allocated %d bytes over %d calls (sink %d)", allocated,
+                                 MEASURED_EVALUATIONS, sink));
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -1,143 +1,729 @@
 package player.ai;
 
-import java.util.Collection;
-import java.util.Comparator;
-
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
+import java.util.ArrayList;
+import java.util.List;
 
+import board.BitBoard;
 import board.Board;
 import board.Move;
-import board.MoveTransition;
-import player.ai.TranspositionTable.Entry;
+import board.MoveList;
+import board.PackedMove;
 
 public class MiniMax {
 
-    private BoardEvaluator evaluator;
+    // Deepest search the per-ply buffers allow
+    public static final int MAX_SEARCH_DEPTH = MoveOrdering.MAX_PLY - 1;
+
+    // What a search reports on standard out: nothing, the move it selects, or its progress as well
+    public enum Verbosity {
+        QUIET,
+        NORMAL,
+        VERBOSE
+    }
+
+    // Nodes between clock reads, minus one so it can be used as a mask
+    private static final int TIME_CHECK_INTERVAL = 1023;
+
+    // Bound of the full window, kept symmetric so that it can be negated
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /*
+     * A depth 1 entry only holds the first move whose replies' captures kept it
+     * above beta, which is the move ordering's own first guess rather than
+     * anything a search below proved. Ordered first it shuts out the killers and
+     * history that have learnt better refutations since, so only deeper entries
+     * supply the hash move.
+     */
+    private static final int HASH_MOVE_MIN_DEPTH = 2;
+
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_DEEP_REDUCTION = 3;
+    private static final int NULL_MOVE_DEEP_DEPTH = 6;
+
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVE_INDEX = 3;
+    private static final int LMR_LATE_MOVE_INDEX = 6;
+
+    // Margins by remaining depth: reverse futility prunes the node, futility prunes its quiet moves
+    private static final int REVERSE_FUTILITY_MARGIN = 120;
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 3;
+    private static final int[] FUTILITY_MARGINS = { 0, 200, 400 };
+
+    // Root window around the previous iteration's score, widened this many times over on each failure
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 50;
+    private static final int ASPIRATION_GROWTH = 4;
+
     private TranspositionTable transpositionTable;
     private int searchDepth;
-    private MoveSorter moveSorter;
-    private int boardsEvaluated;
+    private TimeManager timeManager;
+    private Verbosity verbosity;
+    private List<SearchWorker> workers;
+    private volatile boolean stopped;
+    private boolean nullMovePruning;
+    private boolean lateMoveReductions;
+    private boolean futilityPruning;
+    private boolean hashMoveOrdering;
+    private int score;
+    private long boardsEvaluated;
+    private long[] threadBoardsEvaluated;
+    private double[] threadBoardsPerSecond;
+    private long aspirationFailHighs;
+    private long aspirationFailLows;
+    private long nullWindowResearches;
+    private long pawnHashProbes;
+    private long pawnHashHits;
 
     public MiniMax(int searchDepth) {
-        this.evaluator = new BoardEvaluator();
-        this.transpositionTable = new TranspositionTable(searchDepth);
-        this.searchDepth = searchDepth;
-        this.moveSorter = MoveSorter.SORT;
-        this.boardsEvaluated = 0;
-        Zobrist.generateZobristKeys();
+        this(searchDepth, TranspositionTable.DEFAULT_SIZE_MB);
+    }
+
+    public MiniMax(int searchDepth, int hashSizeInMegabytes) {
+        this.transpositionTable = new TranspositionTable(hashSizeInMegabytes);
+        this.searchDepth = Math.min(searchDepth, MAX_SEARCH_DEPTH);
+        this.timeManager = TimeManager.unlimited();
+        this.verbosity = Verbosity.NORMAL;
+        this.workers = new ArrayList<>();
+        this.threadBoardsEvaluated = new long[0];
+        this.threadBoardsPerSecond = new double[0];
+        this.nullMovePruning = true;
+        this.lateMoveReductions = true;
+        this.futilityPruning = true;
+        this.hashMoveOrdering = true;
+        setThreadCount(1);
+    }
+
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    public void setVerbosity(Verbosity verbosity) {
+        this.verbosity = verbosity;
+    }
+
+    public void setSearchDepth(int searchDepth) {
+        this.searchDepth = Math.min(searchDepth, MAX_SEARCH_DEPTH);
+    }
+
+    // Existing workers are kept so their per-thread state survives a change in thread count
+    public void setThreadCount(int threadCount) {
+        while (this.workers.size() < Math.max(1, threadCount)) {
+            this.workers.add(new SearchWorker(this.workers.size()));
+        }
+        while (this.workers.size() > Math.max(1, threadCount)) {
+            this.workers.remove(this.workers.size() - 1);
+        }
+    }
+
+    // Each forward pruning technique can be switched off on its own to measure what it brings
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public void setFutilityPruning(boolean futilityPruning) {
+        this.futilityPruning = futilityPruning;
+    }
+
+    // Without it the best move stored in the hash table is not searched first, the baseline for its node savings
+    public void setHashMoveOrdering(boolean hashMoveOrdering) {
+        this.hashMoveOrdering = hashMoveOrdering;
+    }
+
+    // Result of the last search: the selected move's score for the side to move, and its cost
+    public int getScore() {
+        return this.score;
+    }
+
+    public long getBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    // Split of the last search's boards by worker thread, indexed by worker id
+    public long[] getThreadBoardsEvaluated() {
+        return this.threadBoardsEvaluated.clone();
+    }
+
+    public double[] getThreadBoardsPerSecond() {
+        return this.threadBoardsPerSecond.clone();
+    }
+
+    // Aspiration failures of the last search, fail high and fail low as seen by the side to move at the root
+    public long getAspirationFailHighs() {
+        return this.aspirationFailHighs;
     }
 
+    public long getAspirationFailLows() {
+        return this.aspirationFailLows;
+    }
+
+    public long getNullWindowResearches() {
+        return this.nullWindowResearches;
+    }
+
+    public double getPawnHashHitRate() {
+        return this.pawnHashProbes == 0 ? 0 : (double) this.pawnHashHits / this.pawnHashProbes;
+    }
+
+    public void setHashSize(int hashSizeInMegabytes) {
+        if (this.transpositionTable.getSizeInMegabytes() != hashSizeInMegabytes) {
+            this.transpositionTable = new TranspositionTable(hashSizeInMegabytes);
+        }
+    }
+
+    /*
+     * The engine is meant to live for a whole game so that what one search learns
+     * is reused by the next; entries from earlier searches are aged out of the
+     * table rather than cleared. A new game starts from an empty table.
+     */
+    public void newGame() {
+        this.transpositionTable.clear();
+    }
+
+    /*
+     * Searches to depth 1, 2, ... up to searchDepth, stopping early when the time
+     * budget runs out. An iteration cut short by the clock is discarded and the
+     * move from the last completed iteration is played.
+     *
+     * With more than one thread the extra workers search the same root (Lazy SMP):
+     * odd workers run one ply ahead and each starts from a differently rotated root
+     * move order, so they fill the shared transposition table with results the
+     * other workers then pick up.
+     */
     public Move getBestMove(Board board) {
-        long startTIme = System.currentTimeMillis();
-        System.out.printf("%s is THINKING [depth = %s]%n", board.currentPlayer(), searchDepth);
-        
-        Move bestMove = new Move.NullMove();
-        int maxScore = Integer.MIN_VALUE;
-        int minScore = Integer.MAX_VALUE;
-        for (Move move : moveSorter.sort(board.currentPlayer().getLegalMoves())) {
-            MoveTransition transition = board.currentPlayer().makeMove(move);
-            if (transition.getMoveStatus().isDone()) {
-                int score = board.currentPlayer().getColor().isWhite() ? 
-                        minimax(transition.getToBoard(), searchDepth - 1, maxScore, minScore, false) :
-                        minimax(transition.getToBoard(), searchDepth - 1, maxScore, minScore, true);
-        
-                if (board.currentPlayer().getColor().isWhite() && score > maxScore) {
-                    maxScore = score;
-                    bestMove = move;
-
-                } else if (board.currentPlayer().getColor().isBlack() && score < minScore) {
-                    minScore = score;
-                    bestMove = move;
-                }
-            }
-        }
-
-        long executionTime = System.currentTimeMillis() - startTIme;
-        System.out.printf("%s SELECTS %s [#boards = %d, time taken = %d ms, rate = %.1f]%n", board.currentPlayer(),
-                          bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/executionTime)));
-        return bestMove;
-    }
-
-    public int minimax(Board board, int depth, int alpha, int beta, boolean isMaximizingPlayer) {
-        long key = Zobrist.hash(board);
-
-        // if board alredy evaluated at same or a deeper depth
-        if (transpositionTable.contains(key) && transpositionTable.get(key).getDepth() >= depth) {
-            Entry entry = transpositionTable.get(key);
-            if (entry.getFlag() == TranspositionTable.EXACT) {
-                return entry.getScore();
-            } else if (entry.getFlag() == TranspositionTable.LOWER) {
-                alpha = Math.max(alpha, entry.getScore());
-            } else {
-                beta = Math.min(beta, entry.getScore());
+        timeManager.start();
+        int threadCount = this.workers.size();
+        if (this.verbosity != Verbosity.QUIET) {
+            System.out.printf("%s is THINKING [depth = %s, threads = %d]%n", board.currentPlayer(), searchDepth, threadCount);
+        }
+        transpositionTable.incrementAge();
+        this.stopped = false;
+
+        // The search plays moves in place on a mutable position instead of building boards
+        BitBoard position = BitBoard.fromBoard(board);
+        List<Thread> helperThreads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            workers.get(i).prepare(i == 0 ? position : new BitBoard(position));
+        }
+        for (int i = 1; i < threadCount; i++) {
+            Thread thread = new Thread(workers.get(i), "MiniMax-" + i);
+            thread.setDaemon(true);
+            helperThreads.add(thread);
+            thread.start();
+        }
+
+        workers.get(0).run();
+        this.stopped = true;
+        for (Thread thread : helperThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Prefer the deepest completed iteration, the main worker wins ties
+        SearchWorker bestWorker = workers.get(0);
+        this.boardsEvaluated = 0;
+        this.threadBoardsEvaluated = new long[threadCount];
+        this.threadBoardsPerSecond = new double[threadCount];
+        this.aspirationFailHighs = 0;
+        this.aspirationFailLows = 0;
+        this.nullWindowResearches = 0;
+        this.pawnHashProbes = 0;
+        this.pawnHashHits = 0;
+        long executionTime = Math.max(1, timeManager.getElapsedMillis());
+        for (SearchWorker worker : workers) {
+            if (worker.completedDepth > bestWorker.completedDepth && worker.bestMove != PackedMove.NULL_MOVE) {
+                bestWorker = worker;
             }
+            this.boardsEvaluated += worker.boardsEvaluated;
+            this.threadBoardsEvaluated[worker.id] = worker.boardsEvaluated;
+            this.threadBoardsPerSecond[worker.id] = 1000 * ((double) worker.boardsEvaluated / executionTime);
+            this.aspirationFailHighs += worker.aspirationFailHighs;
+            this.aspirationFailLows += worker.aspirationFailLows;
+            this.nullWindowResearches += worker.nullWindowResearches;
+            this.pawnHashProbes += worker.evaluator.getPawnHashTable().getProbes();
+            this.pawnHashHits += worker.evaluator.getPawnHashTable().getHits();
+            if (threadCount > 1 && this.verbosity != Verbosity.QUIET) {
+                System.out.printf("  thread %d: depth %d, %s [#boards = %d, rate = %.1f]%n", worker.id, worker.completedDepth,
+                                  PackedMove.toString(worker.bestMove), worker.boardsEvaluated,
+                                  this.threadBoardsPerSecond[worker.id]);
+            }
+        }
+
+        int bestMove = bestWorker.bestMove;
+        this.score = bestWorker.completedScore;
+        Move selectedMove = PackedMove.toMove(board, bestMove);
+        if (this.verbosity != Verbosity.QUIET) {
+            System.out.printf("%s SELECTS %s [#boards = %d, time taken = %d ms, rate = %.1f]%n", board.currentPlayer(),
+                              selectedMove, this.boardsEvaluated, executionTime, (1000 * ((double) this.boardsEvaluated / executionTime)));
+        }
+        if (this.verbosity == Verbosity.VERBOSE) {
+            System.out.printf("  aspiration fail highs = %d, fail lows = %d, null window re-searches = %d%n",
+                              this.aspirationFailHighs, this.aspirationFailLows, this.nullWindowResearches);
+            System.out.printf("  pawn hash hit rate = %.1f%% of %d probes%n", 100 * getPawnHashHitRate(), this.pawnHashProbes);
+        }
+        return selectedMove;
+    }
+
+    private static int firstLegalMove(BitBoard position, MoveList moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (position.isLegal(moves.get(i))) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NULL_MOVE;
+    }
+
+    private static void moveToFront(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                for (int j = i; j > 0; j--) {
+                    moves.set(j, moves.get(j - 1));
+                }
+                moves.set(0, move);
+                return;
+            }
+        }
+    }
+
+    private static void rotate(MoveList moves, int distance) {
+        int size = moves.size();
+        if (size < 2) {
+            return;
+        }
+        int[] rotated = new int[size];
+        for (int i = 0; i < size; i++) {
+            rotated[i] = moves.get((i + distance) % size);
+        }
+        for (int i = 0; i < size; i++) {
+            moves.set(i, rotated[i]);
+        }
+    }
 
-            if (alpha >= beta) {
-                return entry.getScore();
+    private class SearchWorker implements Runnable {
+
+        private final int id;
+        private BitBoard position;
+        private int bestMove;
+        private int rootScore;
+        private int completedDepth;
+        private int completedScore;
+        private long nodesSearched;
+        private long boardsEvaluated;
+        private long aspirationFailHighs;
+        private long aspirationFailLows;
+        private long nullWindowResearches;
+        private boolean aborted;
+        private final MoveOrdering moveOrdering;
+        private final BoardEvaluator evaluator;
+        // One move buffer per ply, reused by every node at that ply
+        private final MoveList[] moveLists;
+
+        private SearchWorker(int id) {
+            this.id = id;
+            this.moveOrdering = new MoveOrdering();
+            this.evaluator = new BoardEvaluator();
+            this.moveLists = new MoveList[MoveOrdering.MAX_PLY];
+            for (int i = 0; i < this.moveLists.length; i++) {
+                this.moveLists[i] = new MoveList();
             }
         }
 
-        if (depth == 0 || board.gameOver()) {
-            boardsEvaluated++;
-            return evaluator.evaluate(board, depth);
+        private void prepare(BitBoard position) {
+            this.position = position;
+            this.bestMove = PackedMove.NULL_MOVE;
+            this.rootScore = 0;
+            this.completedDepth = 0;
+            this.completedScore = 0;
+            this.nodesSearched = 0;
+            this.boardsEvaluated = 0;
+            this.aspirationFailHighs = 0;
+            this.aspirationFailLows = 0;
+            this.nullWindowResearches = 0;
+            this.aborted = false;
+            this.moveOrdering.age();
+            this.evaluator.getPawnHashTable().clearStatistics();
+        }
+
+        private boolean isMainWorker() {
+            return this.id == 0;
         }
 
-        if (isMaximizingPlayer) {
-            int maxScore = alpha;
-            for (Move move : moveSorter.sort(board.currentPlayer().getLegalMoves())) {
-                MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    maxScore = Math.max(maxScore, minimax(moveTransition.getToBoard(), depth - 1, maxScore, beta, false));
-                    if (beta <= maxScore) {
+        @Override
+        public void run() {
+            MoveList rootMoves = new MoveList();
+            position.generateMoves(rootMoves);
+            moveOrdering.scoreMoves(position, rootMoves, PackedMove.NULL_MOVE, 0);
+            for (int i = 0; i < rootMoves.size(); i++) {
+                rootMoves.pickNext(i);
+            }
+            if (!isMainWorker()) {
+                rotate(rootMoves, this.id);
+            }
+
+            int startDepth = isMainWorker() ? 1 : 1 + (this.id & 1);
+            for (int depth = startDepth; depth <= Math.max(1, searchDepth); depth++) {
+                int iterationMove = searchWithAspiration(rootMoves, depth);
+                if (this.aborted) {
+                    // Without a completed iteration the partial result is still better than nothing
+                    if (isMainWorker() && this.bestMove == PackedMove.NULL_MOVE) {
+                        this.bestMove = iterationMove != PackedMove.NULL_MOVE ? iterationMove :
+                                                                                firstLegalMove(position, rootMoves);
+                    }
+                    break;
+                }
+
+                this.bestMove = iterationMove;
+                this.completedDepth = depth;
+                this.completedScore = this.rootScore;
+                moveToFront(rootMoves, this.bestMove);
+                if (isMainWorker()) {
+                    if (verbosity == Verbosity.VERBOSE) {
+                        System.out.printf("  depth %d: %s [#boards = %d, time taken = %d ms]%n", depth,
+                                          PackedMove.toString(this.bestMove), this.boardsEvaluated, timeManager.getElapsedMillis());
+                    }
+                    if (timeManager.isSoftLimitReached()) {
                         break;
                     }
                 }
             }
+        }
+
+        /*
+         * From ASPIRATION_MIN_DEPTH on the root is first searched with a narrow window
+         * around the previous iteration's score. A score outside the window is only a
+         * bound, so the window is widened on that side and the root searched again.
+         */
+        private int searchWithAspiration(MoveList rootMoves, int depth) {
+            int previousScore = this.rootScore;
+            if (depth < ASPIRATION_MIN_DEPTH || BoardEvaluator.isMateScore(previousScore)) {
+                return searchRoot(rootMoves, depth, -INFINITY, INFINITY);
+            }
+
+            int delta = ASPIRATION_WINDOW;
+            int alpha = previousScore - delta;
+            int beta = previousScore + delta;
+            while (true) {
+                int move = searchRoot(rootMoves, depth, alpha, beta);
+                if (this.aborted) {
+                    return move;
+                }
+
+                delta *= ASPIRATION_GROWTH;
+                if (this.rootScore <= alpha && alpha != -INFINITY) {
+                    this.aspirationFailLows++;
+                    alpha = (int) Math.max(-INFINITY, (long) this.rootScore - delta);
+                } else if (this.rootScore >= beta && beta != INFINITY) {
+                    this.aspirationFailHighs++;
+                    beta = (int) Math.min(INFINITY, (long) this.rootScore + delta);
+                } else {
+                    return move;
+                }
+            }
+        }
+
+        // The first move gets the full window, the others a null window and a re-search if they beat it
+        private int searchRoot(MoveList rootMoves, int depth, int alpha, int beta) {
+            int originalAlpha = alpha;
+            int bestMove = PackedMove.NULL_MOVE;
+            int bestScore = -INFINITY;
+            int searchedMoves = 0;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                if (position.isLegal(move)) {
+                    position.makeLegalMove(move);
+                    int score;
+                    if (searchedMoves == 0) {
+                        score = -negamax(position, depth - 1, 1, -beta, -alpha, true);
+                    } else {
+                        score = -negamax(position, depth - 1, 1, -alpha - 1, -alpha, true);
+                        if (!this.aborted && score > alpha && score < beta) {
+                            this.nullWindowResearches++;
+                            score = -negamax(position, depth - 1, 1, -beta, -alpha, true);
+                        }
+                    }
+                    position.unmakeMove(move);
+                    searchedMoves++;
+                    if (this.aborted) {
+                        return bestMove;
+                    }
+
+                    if (score > bestScore) {
+                        bestScore = score;
+                        if (score > alpha) {
+                            alpha = score;
+                            bestMove = move;
+                        }
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            this.rootScore = bestScore;
+            int flag = bestScore >= beta ? TranspositionTable.LOWER :
+                       bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            transpositionTable.store(position.getZobristKey(), bestScore, depth, flag, bestMove, 0);
+            return bestMove;
+        }
 
-            int flag = maxScore <= alpha ? TranspositionTable.EXACT : TranspositionTable.LOWER;
-            transpositionTable.put(key, new Entry(maxScore, depth, flag));
-            return maxScore;
-        } else {
-            int minScore = beta;
-            for (Move move : moveSorter.sort(board.currentPlayer().getLegalMoves())) {
-                MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    minScore = Math.min(minScore, minimax(moveTransition.getToBoard(), depth - 1, alpha, minScore, true));
-                    if (minScore <= alpha) {
+        // Only the main worker reads the clock, helpers stop when it raises the shared flag
+        private boolean isOutOfTime() {
+            if ((++this.nodesSearched & TIME_CHECK_INTERVAL) == 0 && isMainWorker() && timeManager.isHardLimitReached()) {
+                stopped = true;
+            }
+            this.aborted = stopped;
+            return this.aborted;
+        }
+
+        /*
+         * Negamax alpha-beta: scores are from the side to move's point of view and
+         * each child is searched with the window negated. Forward pruning, each
+         * part switchable on the engine:
+         *  - reverse futility: near the leaves a static evaluation that beats beta
+         *    by a depth-scaled margin is trusted without searching;
+         *  - null move: passing the turn and still beating beta at reduced depth
+         *    cuts the node, except in check, right after another null move and
+         *    when the side to move has only pawns (zugzwang);
+         *  - futility: near the leaves quiet moves that do not give check are
+         *    skipped when even a margin above the static evaluation cannot reach
+         *    alpha;
+         *  - late move reductions: quiet moves late in the ordering, all the more
+         *    without history, are first searched shallower and only searched to
+         *    full depth when they turn out to beat alpha.
+         * Every move after the first is searched with a null window (principal
+         * variation search) and searched again with the full window only when it
+         * lands inside it.
+         *
+         * The result is stored as EXACT when it lies inside the window, LOWER when
+         * it failed high (the true score is at least that) and UPPER when no move
+         * beat alpha (at most that), together with the move that raised alpha so
+         * it is searched first on the next visit.
+         */
+        private int negamax(BitBoard position, int depth, int ply, int alpha, int beta, boolean allowNullMove) {
+            if (isOutOfTime()) {
+                return 0;
+            }
+
+            // Paths deeper than the move buffers are cut off with the static evaluation
+            if (ply >= MoveOrdering.MAX_PLY) {
+                return evaluate(position);
+            }
+
+            long key = position.getZobristKey();
+            long entry = transpositionTable.probe(key);
+            int hashMove = hashMoveOrdering && entry != TranspositionTable.NO_ENTRY &&
+                           TranspositionTable.getDepth(entry) >= HASH_MOVE_MIN_DEPTH ? TranspositionTable.getBestMove(entry) :
+                                                                                       PackedMove.NULL_MOVE;
+            if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+                int entryScore = TranspositionTable.getScore(entry, ply);
+                int entryFlag = TranspositionTable.getFlag(entry);
+                if (entryFlag == TranspositionTable.EXACT ||
+                    (entryFlag == TranspositionTable.LOWER && entryScore >= beta) ||
+                    (entryFlag == TranspositionTable.UPPER && entryScore <= alpha)) {
+                    return entryScore;
+                }
+            }
+
+            if (depth == 0) {
+                return quiescence(position, ply, alpha, beta);
+            }
+
+            boolean inCheck = position.isInCheck();
+            // Forward pruning stays away from windows with a mate in them
+            boolean windowIsMate = BoardEvaluator.isMateScore(alpha) || BoardEvaluator.isMateScore(beta);
+
+            int staticEval = 0;
+            boolean nearLeaves = futilityPruning && !inCheck && !windowIsMate && depth <= REVERSE_FUTILITY_MAX_DEPTH;
+            if (nearLeaves) {
+                staticEval = evaluate(position);
+                int margin = REVERSE_FUTILITY_MARGIN * depth;
+                if (staticEval - margin >= beta) {
+                    return staticEval - margin;
+                }
+            }
+
+            if (nullMovePruning && allowNullMove && !inCheck && !windowIsMate && depth >= NULL_MOVE_MIN_DEPTH &&
+                hasPiecesOtherThanPawns(position, position.getSideToMove())) {
+                int reduction = depth >= NULL_MOVE_DEEP_DEPTH ? NULL_MOVE_DEEP_REDUCTION : NULL_MOVE_REDUCTION;
+                position.makeNullMove();
+                int score = -negamax(position, Math.max(0, depth - 1 - reduction), ply + 1, -beta, -beta + 1, false);
+                position.unmakeNullMove();
+                if (this.aborted) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return beta;
+                }
+            }
+
+            boolean futile = nearLeaves && depth < FUTILITY_MARGINS.length && staticEval + FUTILITY_MARGINS[depth] <= alpha;
+
+            MoveList moves = this.moveLists[ply];
+            moves.clear();
+            position.generateMoves(moves);
+            moveOrdering.scoreMoves(position, moves, hashMove, ply);
+            int originalAlpha = alpha;
+            int legalMoves = 0;
+            int bestMove = PackedMove.NULL_MOVE;
+            int bestScore = -INFINITY;
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.pickNext(i);
+                if (!position.isLegal(move)) {
+                    continue;
+                }
+                boolean quiet = !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+                position.makeLegalMove(move);
+                legalMoves++;
+                boolean givesCheck = position.isInCheck();
+                if (futile && quiet && !givesCheck && legalMoves > 1) {
+                    position.unmakeMove(move);
+                    continue;
+                }
+
+                int score;
+                if (legalMoves == 1) {
+                    score = -negamax(position, depth - 1, ply + 1, -beta, -alpha, true);
+                } else {
+                    int reduction = lateMoveReduction(depth, i, moves.getScore(i), quiet, inCheck || givesCheck);
+                    score = -negamax(position, depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, true);
+                    if (reduction > 0 && !this.aborted && score > alpha) {
+                        score = -negamax(position, depth - 1, ply + 1, -alpha - 1, -alpha, true);
+                    }
+                    if (!this.aborted && score > alpha && score < beta) {
+                        this.nullWindowResearches++;
+                        score = -negamax(position, depth - 1, ply + 1, -beta, -alpha, true);
+                    }
+                }
+                position.unmakeMove(move);
+                if (this.aborted) {
+                    return 0;
+                }
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        bestMove = move;
+                    }
+                    if (alpha >= beta) {
+                        moveOrdering.recordCutoff(move, depth, ply);
                         break;
                     }
                 }
             }
 
-            int flag = minScore >= beta ? TranspositionTable.EXACT : TranspositionTable.UPPER;
-            transpositionTable.put(key, new Entry(minScore, depth, flag));
-            return minScore;
+            if (legalMoves == 0) {
+                this.boardsEvaluated++;
+                return gameOverScore(position, ply);
+            }
+
+            int flag = bestScore >= beta ? TranspositionTable.LOWER :
+                       bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            transpositionTable.store(key, bestScore, depth, flag, bestMove, ply);
+            return bestScore;
         }
-    }
 
+        // Plies taken off a quiet move's search, never for the hash move and killers, one more for late moves without history
+        private int lateMoveReduction(int depth, int moveIndex, int moveScore, boolean quiet, boolean check) {
+            if (!lateMoveReductions || !quiet || check || depth < LMR_MIN_DEPTH || moveIndex < LMR_MIN_MOVE_INDEX ||
+                moveScore >= MoveOrdering.KILLER_SCORE - 1) {
+                return 0;
+            }
+            int reduction = moveIndex >= LMR_LATE_MOVE_INDEX && moveScore <= 0 ? 2 : 1;
+            return Math.min(reduction, depth - 2);
+        }
+
+        /*
+         * Resolves captures and queen promotions below the horizon so leaves are
+         * only scored in quiet positions. The side to move may stand pat on the
+         * static evaluation; while in check every evasion is searched instead,
+         * which also finds the mates.
+         */
+        private int quiescence(BitBoard position, int ply, int alpha, int beta) {
+            if (isOutOfTime()) {
+                return 0;
+            }
+
+            // Capture chains long enough to run out of move buffers are simply cut off
+            if (ply >= MoveOrdering.MAX_PLY) {
+                return evaluate(position);
+            }
 
-    private enum MoveSorter {
+            boolean inCheck = position.isInCheck();
+            MoveList moves = this.moveLists[ply];
+            moves.clear();
+            int bestScore;
+            if (inCheck) {
+                bestScore = -INFINITY;
+                position.generateMoves(moves);
+            } else {
+                int standPat = evaluate(position);
+                if (standPat >= beta) {
+                    return standPat;
+                }
+                alpha = Math.max(alpha, standPat);
+                bestScore = standPat;
+                position.generateCaptures(moves);
+            }
+            moveOrdering.scoreMoves(position, moves, PackedMove.NULL_MOVE, ply);
 
-        SORT {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from(SMART_SORT).immutableSortedCopy(moves);
+            boolean hasLegalMove = false;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.pickNext(i);
+                // Captures losing material by static exchange are ordered last and none is worth searching
+                if (!inCheck && moves.getScore(i) < 0) {
+                    break;
+                }
+                if (!position.isLegal(move)) {
+                    continue;
+                }
+                position.makeLegalMove(move);
+                hasLegalMove = true;
+                int score = -quiescence(position, ply + 1, -beta, -alpha);
+                position.unmakeMove(move);
+                if (this.aborted) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    alpha = Math.max(alpha, score);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
             }
-        };
 
-        public static Comparator<Move> SMART_SORT = new Comparator<Move>() {
-            @Override
-            public int compare(final Move move1, final Move move2) {
-                return ComparisonChain.start()
-                        .compareTrueFirst(move1.getBoard().isKingThreatened(), move2.getBoard().isKingThreatened())
-                        .compareTrueFirst(move1.isAttackMove(), move2.isAttackMove())
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(move2.getMovedPiece().getPieceValue(), move1.getMovedPiece().getPieceValue())
-                        .result();
+            if (inCheck && !hasLegalMove) {
+                this.boardsEvaluated++;
+                return gameOverScore(position, ply);
             }
-        };
+            return bestScore;
+        }
+
+        // The evaluator scores from white's point of view
+        private int evaluate(BitBoard position) {
+            this.boardsEvaluated++;
+            int score = this.evaluator.evaluate(position);
+            return position.getSideToMove() == BitBoard.WHITE ? score : -score;
+        }
+    }
+
+    // Null moves are unsafe when the side to move may be in zugzwang, which is mostly the case in pawn endings
+    private static boolean hasPiecesOtherThanPawns(BitBoard position, int color) {
+        return (position.getOccupancy(color) & ~(position.getPieces(color, BitBoard.PAWN) |
+                                                   position.getPieces(color, BitBoard.KING))) != 0;
+    }
 
-        abstract Collection<Move> sort(Collection<Move> moves);
+    // Checkmate or stalemate, scored for the side to move
+    private static int gameOverScore(BitBoard position, int ply) {
+        return position.isInCheck() ? -BoardEvaluator.mateScore(ply) : 0;
     }
 }
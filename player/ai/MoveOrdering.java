@@ -0,0 +1,123 @@
+package player.ai;
+
+import board.BitBoard;
+import board.MoveList;
+import board.PackedMove;
+
+/*
+ * Scores each generated move once so the search can pick them best first:
+ * the transposition table move, then captures and promotions by MVV-LVA, then
+ * the killer moves of the current ply, then the remaining quiet moves by their
+ * history, and last the captures that lose material by static exchange.
+ * Every search worker owns one, the tables are not shared.
+ */
+class MoveOrdering {
+
+    static final int MAX_PLY = 128;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 20;
+    static final int KILLER_SCORE = 1 << 19;
+    private static final int UNDER_PROMOTION_SCORE = -1;
+    private static final int LOSING_CAPTURE_SCORE = -CAPTURE_SCORE;
+    private static final int MAX_HISTORY = KILLER_SCORE - 1;
+    private static final int KILLER_PLY_SHIFT = 2;
+
+    private final int[][] killers;
+    private final int[][] history;
+    private final StaticExchange staticExchange;
+
+    MoveOrdering() {
+        this.killers = new int[MAX_PLY][2];
+        this.history = new int[12][64];
+        this.staticExchange = new StaticExchange();
+    }
+
+    /*
+     * The next search usually starts two plies further on, after this move and the
+     * reply, so the killers move up two plies to stay with the positions they were
+     * found in. History is halved so recent searches weigh more.
+     */
+    void age() {
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            boolean kept = ply + KILLER_PLY_SHIFT < MAX_PLY;
+            this.killers[ply][0] = kept ? this.killers[ply + KILLER_PLY_SHIFT][0] : PackedMove.NULL_MOVE;
+            this.killers[ply][1] = kept ? this.killers[ply + KILLER_PLY_SHIFT][1] : PackedMove.NULL_MOVE;
+        }
+        for (int[] pieceHistory : this.history) {
+            for (int i = 0; i < pieceHistory.length; i++) {
+                pieceHistory[i] >>= 1;
+            }
+        }
+    }
+
+    // The hash move comes from the transposition table, so only its short form is known
+    void scoreMoves(BitBoard position, MoveList moves, int hashMove, int ply) {
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setScore(i, scoreMove(position, moves.get(i), hashMove, ply));
+        }
+    }
+
+    private int scoreMove(BitBoard position, int move, int hashMove, int ply) {
+        if (PackedMove.toShortMove(move) == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+
+        int movedPiece = PackedMove.getMovedPiece(move);
+        if (PackedMove.isPromotion(move)) {
+            int promotionType = PackedMove.getPromotionType(move);
+            if (promotionType != BitBoard.QUEEN) {
+                return UNDER_PROMOTION_SCORE;
+            }
+            int victimType = PackedMove.isCapture(move) ? BitBoard.pieceType(PackedMove.getCapturedPiece(move)) : BitBoard.PAWN;
+            return CAPTURE_SCORE + (promotionType + victimType) * 8;
+        }
+        if (PackedMove.isCapture(move)) {
+            // Most valuable victim first, least valuable attacker breaking ties
+            int victimType = BitBoard.pieceType(PackedMove.getCapturedPiece(move));
+            int attackerType = BitBoard.pieceType(movedPiece);
+            // Taking a piece worth at least the attacker never loses material, so only the others are resolved
+            if (BoardEvaluator.PIECE_VALUES[attackerType] > BoardEvaluator.PIECE_VALUES[victimType]) {
+                int exchange = this.staticExchange.evaluate(position, move);
+                if (exchange < 0) {
+                    return LOSING_CAPTURE_SCORE + exchange;
+                }
+            }
+            return CAPTURE_SCORE + victimType * 8 + (BitBoard.KING - attackerType);
+        }
+
+        if (ply < MAX_PLY) {
+            if (move == this.killers[ply][0]) {
+                return KILLER_SCORE;
+            }
+            if (move == this.killers[ply][1]) {
+                return KILLER_SCORE - 1;
+            }
+        }
+        return this.history[movedPiece][PackedMove.getTo(move)];
+    }
+
+    // Called for the move that caused a cutoff, only quiet moves are remembered
+    void recordCutoff(int move, int depth, int ply) {
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+            return;
+        }
+
+        if (ply < MAX_PLY && this.killers[ply][0] != move) {
+            this.killers[ply][1] = this.killers[ply][0];
+            this.killers[ply][0] = move;
+        }
+
+        int[] pieceHistory = this.history[PackedMove.getMovedPiece(move)];
+        int to = PackedMove.getTo(move);
+        pieceHistory[to] += depth * depth;
+        if (pieceHistory[to] > MAX_HISTORY) {
+            for (int[] table : this.history) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>= 1;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package player.ai;
+
+/*
+ * Bounded cache of pawn structure scores keyed by the pawn-only Zobrist key.
+ * Pawn structure changes on few moves, so sibling nodes almost always find
+ * their score here. Not thread safe: each evaluator owns its own table.
+ */
+public class PawnHashTable {
+
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final boolean[] occupied;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        this.keys = new long[size];
+        this.scores = new int[size];
+        this.occupied = new boolean[size];
+        this.mask = size - 1;
+    }
+
+    public boolean contains(long pawnKey) {
+        int index = (int) pawnKey & this.mask;
+        this.probes++;
+        if (this.occupied[index] && this.keys[index] == pawnKey) {
+            this.hits++;
+            return true;
+        }
+        return false;
+    }
+
+    // Only valid straight after contains returned true for the same key
+    public int getScore(long pawnKey) {
+        return this.scores[(int) pawnKey & this.mask];
+    }
+
+    public void store(long pawnKey, int score) {
+        int index = (int) pawnKey & this.mask;
+        this.keys[index] = pawnKey;
+        this.scores[index] = score;
+        this.occupied[index] = true;
+    }
+
+    public long getProbes() {
+        return this.probes;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public void clearStatistics() {
+        this.probes = 0;
+        this.hits = 0;
+    }
+
+}
@@ -0,0 +1,144 @@
+package player.ai;
+
+/*
+ * Material plus piece-square value of every piece index (color * 6 + type) on
+ * every square, for the middlegame and for the endgame, seen from the piece's
+ * own side. Black reads the white tables flipped vertically. BitBoard keeps the
+ * sums up to date as pieces are placed and removed; the evaluator blends the
+ * two by the game phase.
+ */
+public final class PieceSquareTables {
+
+    // Phase of a position with all minor and major pieces on the board
+    public static final int MAX_PHASE = 24;
+
+    private static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+
+    private static final int[] PAWN_TABLE = {
+        0,  0,  0,  0,  0,  0,  0,  0,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        10, 10, 20, 30, 30, 20, 10, 10,
+        5,  5, 10, 25, 25, 10,  5,  5,
+        0,  0,  0, 20, 20,  0,  0,  0,
+        5, -5,-10,  0,  0,-10, -5,  5,
+        5, 10, 10,-20,-20, 10, 10,  5,
+        0,  0,  0,  0,  0,  0,  0,  0
+    };
+
+    private static final int[] PAWN_TABLE_ENDGAME = {
+        0,  0,  0,  0,  0,  0,  0,  0,
+        80, 80, 80, 80, 80, 80, 80, 80,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        30, 30, 30, 30, 30, 30, 30, 30,
+        20, 20, 20, 20, 20, 20, 20, 20,
+        10, 10, 10, 10, 10, 10, 10, 10,
+        10, 10, 10, 10, 10, 10, 10, 10,
+        0,  0,  0,  0,  0,  0,  0,  0
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+        -50,-40,-30,-30,-30,-30,-40,-50,
+        -40,-20,  0,  5,  5,  0,-20,-40,
+        -30,  0, 10, 15, 15, 10,  0,-30,
+        -30,  5, 15, 20, 20, 15,  5,-30,
+        -30,  0, 15, 20, 20, 15,  0,-30,
+        -30,  5, 10, 15, 15, 10,  5,-30,
+        -40,-20,  0,  0,  0,  0,-20,-40,
+        -50,-40,-30,-30,-30,-30,-40,-50
+    };
+
+    private static final int[] BISHOP_TABLE = {
+        -20,-10,-10,-10,-10,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5, 10, 10,  5,  0,-10,
+        -10,  5,  5, 10, 10,  5,  5,-10,
+        -10,  0, 10, 15, 15, 10,  0,-10,
+        -10, 10, 10, 10, 10, 10, 10,-10,
+        -10,  5,  0,  0,  0,  0,  5,-10,
+        -20,-10,-10,-10,-10,-10,-10,-20
+    };
+
+    private static final int[] ROOK_TABLE = {
+        0,  0,  0,  0,  0,  0,  0,  0,
+        5, 10, 10, 10, 10, 10, 10,  5,
+        5,  0,  0,  0,  0,  0,  0, -5,
+       -5,  0,  0,  0,  0,  0,  0, -5,
+       -5,  0,  0,  0,  0,  0,  0, -5,
+       -5,  0,  0,  0,  0,  0,  0, -5,
+       -5,  0,  0,  0,  0,  0,  0, -5,
+        0,  0,  0,  5,  5,  0,  0,  0
+    };
+
+    private static final int[] QUEEN_TABLE = {
+        -20,-10,-10, -5, -5,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5,  5,  5,  5,  0,-10,
+         -5,  0,  5,  5,  5,  5,  0, -5,
+          0,  0,  5,  5,  5,  5,  0, -5,
+        -10,  5,  5,  5,  5,  5,  0,-10,
+        -10,  0,  5,  0,  0,  0,  0,-10,
+        -20,-10,-10, -5, -5,-10,-10,-20
+    };
+
+    private static final int[] KING_TABLE_MIDGAME = {
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -20,-30,-30,-40,-40,-30,-30,-20,
+        -10,-20,-20,-20,-20,-20,-20,-10,
+         20, 20,  0,  0,  0,  0, 20, 20,
+         20, 30, 10,  0,  0, 10, 30, 20
+    };
+
+    private static final int[] KING_TABLE_ENDGAME = {
+        -50,-30,-30,-30,-30,-30,-30,-50,
+        -30,-30,  0,  0,  0,  0,-30,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-20,-10,  0,  0,-10,-20,-30,
+        -50,-40,-30,-20,-20,-30,-40,-50
+    };
+
+    private static final int[][] MIDGAME_TABLES = initTables(new int[][] {
+        PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE_MIDGAME
+    });
+
+    private static final int[][] ENDGAME_TABLES = initTables(new int[][] {
+        PAWN_TABLE_ENDGAME, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE_ENDGAME
+    });
+
+    private PieceSquareTables() {}
+
+    private static int[][] initTables(int[][] whiteTables) {
+        int[][] tables = new int[12][64];
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                tables[type][square] = BoardEvaluator.PIECE_VALUES[type] + whiteTables[type][square];
+                tables[6 + type][square] = BoardEvaluator.PIECE_VALUES[type] + whiteTables[type][square ^ 56];
+            }
+        }
+        return tables;
+    }
+
+    public static int midgame(int piece, int square) {
+        return MIDGAME_TABLES[piece][square];
+    }
+
+    public static int endgame(int piece, int square) {
+        return ENDGAME_TABLES[piece][square];
+    }
+
+    public static int phaseWeight(int piece) {
+        return PHASE_WEIGHTS[piece % 6];
+    }
+
+    // Promotions can push the phase past its maximum, which still counts as a full middlegame
+    public static int taper(int midgameScore, int endgameScore, int phase) {
+        int midgameWeight = Math.min(phase, MAX_PHASE);
+        return (midgameScore * midgameWeight + endgameScore * (MAX_PHASE - midgameWeight)) / MAX_PHASE;
+    }
+
+}
@@ -0,0 +1,122 @@
+package player.ai;
+
+import board.BitBoard;
+import board.PackedMove;
+
+/*
+ * Static exchange evaluation: the material balance of the capture sequence on
+ * one square, with both sides recapturing with their least valuable piece and
+ * free to stop once recapturing would lose material. Sliders lined up behind a
+ * capturing piece join in as soon as it leaves (x-rays); pins and checks are
+ * ignored. Every search worker owns its instances, they are not thread safe.
+ */
+final class StaticExchange {
+
+    // One entry per capture in the sequence, no square has more attackers than this
+    private static final int MAX_EXCHANGES = 34;
+
+    private final int[] gains;
+
+    StaticExchange() {
+        this.gains = new int[MAX_EXCHANGES];
+    }
+
+    // Material won by the side making the move, negative when the exchange it starts loses material
+    int evaluate(BitBoard position, int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int movedPiece = PackedMove.getMovedPiece(move);
+        int color = BitBoard.pieceColor(movedPiece);
+        long occupied = position.getOccupied() & ~(1L << from);
+
+        int capturedPiece = PackedMove.getCapturedPiece(move);
+        int gain = capturedPiece == PackedMove.NO_PIECE ? 0 : value(capturedPiece);
+        int pieceValue = value(movedPiece);
+        if (PackedMove.isEnPassant(move)) {
+            occupied &= ~(1L << (to + (color == BitBoard.WHITE ? 8 : -8)));
+        }
+        if (PackedMove.isPromotion(move)) {
+            pieceValue = BoardEvaluator.PIECE_VALUES[PackedMove.getPromotionType(move)];
+            gain += pieceValue - BoardEvaluator.PIECE_VALUES[BitBoard.PAWN];
+        }
+        return exchange(position, to, color ^ 1, occupied, gain, pieceValue);
+    }
+
+    // Material the given side wins by starting the exchange on the square, zero when it would rather not capture
+    int evaluateThreat(BitBoard position, int square, int byColor) {
+        long occupied = position.getOccupied();
+        long attackers = position.attackersTo(square, occupied) & position.getOccupancy(byColor);
+        if (attackers == 0) {
+            return 0;
+        }
+
+        int attacker = leastValuableAttacker(position, attackers, byColor);
+        int from = Long.numberOfTrailingZeros(attackers & position.getPieces(byColor, attacker));
+        int result = exchange(position, square, byColor ^ 1, occupied & ~(1L << from),
+                              value(position.getPiece(square)), BoardEvaluator.PIECE_VALUES[attacker]);
+        return Math.max(0, result);
+    }
+
+    /*
+     * Plays out the captures on the square once the first one is made: the side to
+     * recapture faces a piece worth pieceValue after having lost firstGain. The
+     * sequence is then folded back from its end, each side keeping the better of
+     * recapturing or standing pat.
+     */
+    private int exchange(BitBoard position, int square, int side, long occupied, int firstGain, int pieceValue) {
+        long diagonalSliders = position.getPieces(BitBoard.WHITE, BitBoard.BISHOP) | position.getPieces(BitBoard.WHITE, BitBoard.QUEEN) |
+                               position.getPieces(BitBoard.BLACK, BitBoard.BISHOP) | position.getPieces(BitBoard.BLACK, BitBoard.QUEEN);
+        long straightSliders = position.getPieces(BitBoard.WHITE, BitBoard.ROOK) | position.getPieces(BitBoard.WHITE, BitBoard.QUEEN) |
+                               position.getPieces(BitBoard.BLACK, BitBoard.ROOK) | position.getPieces(BitBoard.BLACK, BitBoard.QUEEN);
+        long attackers = position.attackersTo(square, occupied) & occupied;
+
+        int depth = 0;
+        this.gains[0] = firstGain;
+        while (depth + 1 < MAX_EXCHANGES) {
+            long sideAttackers = attackers & position.getOccupancy(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+
+            depth++;
+            this.gains[depth] = pieceValue - this.gains[depth - 1];
+            // This capture loses material whatever follows, so the side stands pat instead
+            if (Math.max(-this.gains[depth - 1], this.gains[depth]) < 0) {
+                depth--;
+                break;
+            }
+
+            int attacker = leastValuableAttacker(position, sideAttackers, side);
+            long attackerBit = Long.lowestOneBit(sideAttackers & position.getPieces(side, attacker));
+            occupied &= ~attackerBit;
+            if (attacker == BitBoard.PAWN || attacker == BitBoard.BISHOP || attacker == BitBoard.QUEEN) {
+                attackers |= BitBoard.bishopAttacks(square, occupied) & diagonalSliders;
+            }
+            if (attacker == BitBoard.ROOK || attacker == BitBoard.QUEEN) {
+                attackers |= BitBoard.rookAttacks(square, occupied) & straightSliders;
+            }
+            attackers &= occupied;
+            pieceValue = BoardEvaluator.PIECE_VALUES[attacker];
+            side ^= 1;
+        }
+
+        for (; depth > 0; depth--) {
+            this.gains[depth - 1] = -Math.max(-this.gains[depth - 1], this.gains[depth]);
+        }
+        return this.gains[0];
+    }
+
+    private static int leastValuableAttacker(BitBoard position, long attackers, int color) {
+        for (int type = BitBoard.PAWN; type < BitBoard.KING; type++) {
+            if ((attackers & position.getPieces(color, type)) != 0) {
+                return type;
+            }
+        }
+        return BitBoard.KING;
+    }
+
+    private static int value(int piece) {
+        return BoardEvaluator.PIECE_VALUES[BitBoard.pieceType(piece)];
+    }
+
+}
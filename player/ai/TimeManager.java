@@ -0,0 +1,54 @@
+package player.ai;
+
+/*
+ * Wall-clock budget for one search. The soft limit is checked between
+ * iterations (a new iteration is not started past it), the hard limit aborts
+ * the iteration in progress.
+ */
+public class TimeManager {
+
+    private static final int MOVES_TO_GO = 30;
+    private static final long SAFETY_MARGIN_MILLIS = 50;
+
+    private final long softLimitMillis;
+    private final long hardLimitMillis;
+    private long startTime;
+
+    private TimeManager(long softLimitMillis, long hardLimitMillis) {
+        this.softLimitMillis = softLimitMillis;
+        this.hardLimitMillis = hardLimitMillis;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public static TimeManager unlimited() {
+        return new TimeManager(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static TimeManager forMoveTime(long moveTimeMillis) {
+        return new TimeManager(moveTimeMillis / 2, moveTimeMillis);
+    }
+
+    // Spreads the remaining clock over the moves still to play, plus most of the increment
+    public static TimeManager forClock(long remainingMillis, long incrementMillis) {
+        long budget = remainingMillis / MOVES_TO_GO + incrementMillis * 3 / 4;
+        long allocated = Math.max(1, Math.min(budget, remainingMillis - SAFETY_MARGIN_MILLIS));
+        return new TimeManager(allocated / 2, allocated);
+    }
+
+    public void start() {
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - this.startTime;
+    }
+
+    public boolean isSoftLimitReached() {
+        return getElapsedMillis() >= this.softLimitMillis;
+    }
+
+    public boolean isHardLimitReached() {
+        return getElapsedMillis() >= this.hardLimitMillis;
+    }
+
+}
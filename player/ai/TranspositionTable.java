@@ -1,64 +1,144 @@
 package player.ai;
 
-import java.util.HashMap;
-
+import java.util.Arrays;
+
+/*
+ * Fixed size hash table of packed entries. Each bucket holds a depth-preferred
+ * slot followed by an always-replace slot, and each slot is two longs: the key
+ * XORed with the data, then the data itself. A slot whose halves were written
+ * by different threads fails the key check and reads as a miss, so threads can
+ * share the table without locking.
+ *
+ * Data layout: bits 0-15 best move, 16-47 score, 48-55 depth,
+ * 56-57 bound flag + 1 (so stored data is never zero), 58-63 search age.
+ */
 public class TranspositionTable {
 
-    private static HashMap<Long, Entry> table;
+    public static final int DEFAULT_SIZE_MB = 64;
+
+    public static final long NO_ENTRY = 0L;
 
     protected static final int EXACT = 0;
     protected static final int LOWER = 1;
     protected static final int UPPER = 2;
 
-    public static class Entry {
-
-        private int score;
-        private int depth;
-        private int flag;
+    private static final int BYTES_PER_BUCKET = 4 * Long.BYTES;
+    private static final int MAX_AGE = 63;
+
+    private final long[] table;
+    private final int sizeInMegabytes;
+    private final int bucketMask;
+    private int age;
+
+    public TranspositionTable(int sizeInMegabytes) {
+        long buckets = Math.max(1L, (long) sizeInMegabytes * 1024 * 1024 / BYTES_PER_BUCKET);
+        // Round down to a power of two, capped so the backing array stays addressable
+        int bucketCount = (int) Long.highestOneBit(Math.min(buckets, 1L << 28));
+        this.table = new long[bucketCount * 4];
+        this.sizeInMegabytes = sizeInMegabytes;
+        this.bucketMask = bucketCount - 1;
+        this.age = 0;
+    }
 
-        public Entry(int score, int depth, int flag) {
-            this.score = score;
-            this.depth = depth;
-            this.flag = flag;
+    public long probe(long key) {
+        int index = bucketIndex(key);
+        for (int slot = index; slot < index + 4; slot += 2) {
+            long data = this.table[slot + 1];
+            if ((this.table[slot] ^ data) == key && data != NO_ENTRY) {
+                return data;
+            }
         }
+        return NO_ENTRY;
+    }
 
-        public int getScore() {
-            return score;
+    /*
+     * Mate scores count plies from the root, but an entry can be reached at any
+     * ply. They are stored relative to the node (plies to the mate from here) and
+     * turned back into root-relative scores by getScore.
+     */
+    public void store(long key, int score, int depth, int flag, int bestMove, int ply) {
+        int index = bucketIndex(key);
+        long data = pack(toNodeScore(score, ply), depth, flag, bestMove, this.age);
+
+        long preferredData = this.table[index + 1];
+        long alwaysData = this.table[index + 3];
+        boolean preferredSameKey = (this.table[index] ^ preferredData) == key && preferredData != NO_ENTRY;
+        boolean alwaysSameKey = (this.table[index + 2] ^ alwaysData) == key && alwaysData != NO_ENTRY;
+        // Keep the best move of a shallower result for the same position, whichever slot holds it
+        if (bestMove == 0) {
+            data |= preferredSameKey ? getBestMove(preferredData) : alwaysSameKey ? getBestMove(alwaysData) : 0;
         }
 
-        public int getDepth() {
-            return depth;
+        if (preferredData == NO_ENTRY || preferredSameKey || getAge(preferredData) != this.age ||
+            depth >= getDepth(preferredData)) {
+            this.table[index] = key ^ data;
+            this.table[index + 1] = data;
+            // An older copy left in the other slot would only be shadowed by this one
+            if (alwaysSameKey) {
+                this.table[index + 2] = 0L;
+                this.table[index + 3] = NO_ENTRY;
+            }
+        } else {
+            this.table[index + 2] = key ^ data;
+            this.table[index + 3] = data;
         }
+    }
 
-        public int getFlag() {
-            return flag;
-        }
+    // Called once per search so entries from earlier searches become the first to be replaced
+    public void incrementAge() {
+        this.age = (this.age + 1) & MAX_AGE;
+    }
 
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+        this.age = 0;
     }
 
-    public TranspositionTable(int size) {
-        table = new HashMap<Long, Entry>(size);
+    public int getSizeInMegabytes() {
+        return this.sizeInMegabytes;
     }
 
-    public Entry get(long key) {
-        return table.get(key);
+    private int bucketIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & this.bucketMask) << 2;
     }
 
-    public void put(long key, Entry entry) {
-        table.put(key, entry);
+    private static long pack(int score, int depth, int flag, int bestMove, int age) {
+        return (bestMove & 0xFFFFL) |
+               ((score & 0xFFFFFFFFL) << 16) |
+               ((long) Math.max(0, Math.min(depth, 255)) << 48) |
+               ((long) (flag + 1) << 56) |
+               ((long) age << 58);
     }
 
-    public boolean contains(long key) {
-        return table.containsKey(key);
+    public static int getBestMove(long entry) {
+        return (int) (entry & 0xFFFF);
     }
 
-    public void clear() {
-        table.clear();
+    public static int getScore(long entry, int ply) {
+        int score = (int) (entry >>> 16);
+        if (BoardEvaluator.isMateScore(score)) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
     }
 
+    private static int toNodeScore(int score, int ply) {
+        if (BoardEvaluator.isMateScore(score)) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
 
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> 48) & 0xFF);
+    }
 
+    public static int getFlag(long entry) {
+        return (int) ((entry >>> 56) & 0x3) - 1;
+    }
 
+    public static int getAge(long entry) {
+        return (int) (entry >>> 58);
+    }
 
-    
-}
\ No newline at end of file
+}
@@ -2,7 +2,9 @@ package player.ai;
 
 import java.util.Random;
 
+import board.BitBoard;
 import board.Board;
+import pieces.King;
 import pieces.Pawn;
 import pieces.Piece;
 
@@ -13,77 +15,138 @@ public class Zobrist {
     private static long[] enPassantKey;
     private static long blackMoveKey;
 
+    // When set, every incrementally updated hash is checked against a full recomputation
+    private static boolean verifyIncrementalHash = Boolean.getBoolean("jchess.zobrist.verify");
+
+    static {
+        generateZobristKeys();
+    }
+
     public static void generateZobristKeys() {
         Random rand = new Random(1234567890L);
-        piecesKey = new long[2][6][64];
+        long[][][] pieces = new long[2][6][64];
         for (int i = 0; i < 2; i++) {
             for (int j = 0; j < 6; j++) {
                 for (int k = 0; k < 64; k++) {
-                    piecesKey[i][j][k] = rand.nextLong();
+                    pieces[i][j][k] = rand.nextLong();
                 }
             }
         }
-        
-        castlingKey = new long[4];
+
+        long[] castling = new long[4];
         for (int i = 0; i < 4; i++) {
-            castlingKey[i] = rand.nextLong();
+            castling[i] = rand.nextLong();
         }
 
-        enPassantKey = new long[8];
-        for (int i = 0; i < 8; i++) {   
-            enPassantKey[i] = rand.nextLong();
+        long[] enPassant = new long[8];
+        for (int i = 0; i < 8; i++) {
+            enPassant[i] = rand.nextLong();
         }
 
+        piecesKey = pieces;
+        castlingKey = castling;
+        enPassantKey = enPassant;
         blackMoveKey = rand.nextLong();
     }
 
+    public static boolean isVerifyingIncrementalHash() {
+        return verifyIncrementalHash;
+    }
+
+    public static void setVerifyIncrementalHash(boolean verify) {
+        verifyIncrementalHash = verify;
+    }
+
+    public static long pieceKey(Piece piece, int position) {
+        return piecesKey[piece.getColor().isWhite() ? 0 : 1][piece.getPieceType().ordinal()][position];
+    }
+
+    public static long pieceKey(int piece, int square) {
+        return piecesKey[BitBoard.pieceColor(piece)][BitBoard.pieceType(piece)][square];
+    }
+
+    // Castling rights live on the King pieces, any other piece contributes nothing
+    public static long castlingKey(Piece piece) {
+        if (!(piece instanceof King)) {
+            return 0L;
+        }
+
+        King king = (King) piece;
+        int offset = king.getColor().isWhite() ? 0 : 2;
+        return (king.isKingSideCastleCapable() ? castlingKey[offset] : 0L) ^
+               (king.isQueenSideCastleCapable() ? castlingKey[offset + 1] : 0L);
+    }
+
+    public static long castlingKey(int castlingRights) {
+        long key = 0L;
+        for (int i = 0; i < 4; i++) {
+            if ((castlingRights & (1 << i)) != 0) {
+                key ^= castlingKey[i];
+            }
+        }
+        return key;
+    }
+
+    public static long enPassantKey(Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L : enPassantKey[enPassantPawn.getPosition() % Board.NUM_TILES_PER_ROW];
+    }
+
+    public static long enPassantKey(int enPassantSquare) {
+        return enPassantSquare == BitBoard.NO_SQUARE ? 0L : enPassantKey[enPassantSquare % Board.NUM_TILES_PER_ROW];
+    }
+
+    public static long sideToMoveKey() {
+        return blackMoveKey;
+    }
+
     public static long hash(Board board) {
         long hashKey = 0L;
         for (int i = 0; i < Board.NUM_TILES; i++) {
             if (board.getTile(i).isOccupied()) {
-                Piece piece = board.getTile(i).getPiece();
-                switch (piece.getPieceType()) {
-                    case PAWN:
-                        hashKey ^= piece.getColor().isWhite() ? piecesKey[0][0][i] : piecesKey[1][0][i];
-                        break;
-                    case KNIGHT:
-                        hashKey ^= piece.getColor().isWhite() ? piecesKey[0][1][i] : piecesKey[1][1][i];
-                        break;
-                    case BISHOP: 
-                        hashKey ^= piece.getColor().isWhite() ? piecesKey[0][2][i] : piecesKey[1][2][i];
-                        break;
-                    case ROOK: 
-                        hashKey ^= piece.getColor().isWhite() ? piecesKey[0][3][i] : piecesKey[1][3][i];
-                        break;
-                    case QUEEN:
-                        hashKey ^= piece.getColor().isWhite() ? piecesKey[0][4][i] : piecesKey[1][4][i];
-                        break;
-                    case KING:
-                        hashKey ^= piece.getColor().isWhite() ? piecesKey[0][5][i] : piecesKey[1][5][i];
-                        break;
-                }
+                hashKey ^= pieceKey(board.getTile(i).getPiece(), i);
             }
         }
 
-        for (int i = 0; i < 4; i++) {
-            if (board.getCastlingRights().get(i)) {
-                hashKey ^= castlingKey[i];
-            }
+        hashKey ^= castlingKey(board.whitePlayer().getPlayerKing());
+        hashKey ^= castlingKey(board.blackPlayer().getPlayerKing());
+        hashKey ^= enPassantKey(board.getEnPassantPawn());
+
+        if (board.currentPlayer().getColor().isBlack()) {
+            hashKey ^= blackMoveKey;
         }
 
-        for (int i = 0; i < 8; i++) {
-            Pawn enPassantPawn = board.getEnPassantPawn();
-            if (enPassantPawn != null) {
-                hashKey ^= enPassantKey[enPassantPawn.getPosition() / Board.NUM_TILES_PER_ROW];
+        return hashKey;
+    }
+
+    public static long hash(BitBoard position) {
+        long hashKey = 0L;
+        for (int i = 0; i < Board.NUM_TILES; i++) {
+            int piece = position.getPiece(i);
+            if (piece != BitBoard.EMPTY) {
+                hashKey ^= pieceKey(piece, i);
             }
         }
 
-        if (board.currentPlayer().getColor().isBlack()) {
+        hashKey ^= castlingKey(position.getCastlingRights());
+        hashKey ^= enPassantKey(position.getEnPassantSquare());
+
+        if (position.getSideToMove() == BitBoard.BLACK) {
             hashKey ^= blackMoveKey;
         }
 
-        return hashKey;       
+        return hashKey;
     }
-   
-    
-}
\ No newline at end of file
+
+    public static long pawnHash(BitBoard position) {
+        long pawnKey = 0L;
+        for (int color = BitBoard.WHITE; color <= BitBoard.BLACK; color++) {
+            long pawns = position.getPieces(color, BitBoard.PAWN);
+            while (pawns != 0) {
+                pawnKey ^= pieceKey(BitBoard.pieceIndex(color, BitBoard.PAWN), Long.numberOfTrailingZeros(pawns));
+                pawns &= pawns - 1;
+            }
+        }
+        return pawnKey;
+    }
+
+}